@@ -0,0 +1,145 @@
+package com.skripsi.siap_sewa.index;
+
+import com.skripsi.siap_sewa.dto.product.ProductFilterRequest;
+import com.skripsi.siap_sewa.entity.ProductEntity;
+import com.skripsi.siap_sewa.entity.ShopEntity;
+import com.skripsi.siap_sewa.repository.ProductRepository;
+import com.skripsi.siap_sewa.repository.ShopRepository;
+import com.skripsi.siap_sewa.repository.projection.ProductCardView;
+import com.skripsi.siap_sewa.spesification.ProductSpecification;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filter listing with the categorical filters answered by {@link ProductFilterIndex}
+ * (index match, then an id-list query) against the same filters as a plain
+ * {@link ProductSpecification}, on a seeded Postgres in a container.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProductFilterIndexBenchmark {
+
+	private static final String[] CATEGORIES = {"Camping", "Elektronik", "Fotografi", "Olahraga", "Pakaian",
+			"Perlengkapan Bayi", "Otomotif", "Musik", "Dekorasi", "Perkakas"};
+	private static final String[] PROVINCES = {"Jawa Barat", "Jawa Tengah", "Jawa Timur", "DKI Jakarta", "Banten",
+			"Bali", "Sumatera Utara", "Sulawesi Selatan", "DI Yogyakarta", "Kalimantan Timur"};
+
+	@Param("50000")
+	private int products;
+
+	private PostgreSQLContainer<?> postgres;
+	private ConfigurableApplicationContext context;
+	private ProductRepository productRepository;
+	private ProductFilterIndex productFilterIndex;
+	private ProductFilterRequest request;
+	private PageRequest page;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+		postgres.start();
+		context = new SpringApplicationBuilder(BenchmarkConfig.class)
+				.web(WebApplicationType.NONE)
+				.run("--spring.datasource.url=" + postgres.getJdbcUrl(),
+						"--spring.datasource.username=" + postgres.getUsername(),
+						"--spring.datasource.password=" + postgres.getPassword(),
+						"--spring.jpa.hibernate.ddl-auto=create",
+						"--pintu.sewa.filter-index.max-candidates=2000");
+		productRepository = context.getBean(ProductRepository.class);
+		productFilterIndex = context.getBean(ProductFilterIndex.class);
+
+		seed(context.getBean(ShopRepository.class));
+		productFilterIndex.rebuild();
+
+		// Every 30th product matches: selective enough for the index to answer (under max-candidates)
+		request = ProductFilterRequest.builder()
+				.categories(List.of("Camping", "Fotografi"))
+				.provinces(List.of("jawa barat"))
+				.rentDurations(List.of(1))
+				.isRnbOptions(List.of(true))
+				.build();
+		page = PageRequest.of(0, 16, Sort.by("name"));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+		postgres.stop();
+	}
+
+	@Benchmark
+	public Page<ProductCardView> filterIndexPath() {
+		List<String> ids = productFilterIndex.match(request).orElseThrow();
+		return productRepository.findProductCards(ProductSpecification.idIn(ids), page);
+	}
+
+	@Benchmark
+	public Page<ProductCardView> specificationPath() {
+		return productRepository.findProductCards(ProductSpecification.withFilters(request), page);
+	}
+
+	@Benchmark
+	public List<String> indexMatchOnly() {
+		return productFilterIndex.match(request).orElseThrow();
+	}
+
+	private void seed(ShopRepository shopRepository) {
+		List<ShopEntity> shops = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			shops.add(ShopEntity.builder()
+					.name("Toko " + i)
+					.province(PROVINCES[i % PROVINCES.length])
+					.regency("Kota " + i)
+					.build());
+		}
+		shops = shopRepository.saveAll(shops);
+
+		List<ProductEntity> batch = new ArrayList<>();
+		for (int i = 0; i < products; i++) {
+			batch.add(ProductEntity.builder()
+					.name("Produk " + i)
+					.category(CATEGORIES[i % CATEGORIES.length])
+					.rentCategory(1 + i % 3)
+					.isRnb(i % 2 == 0)
+					.status("AVAILABLE")
+					.stock(1 + i % 10)
+					.dailyPrice(BigDecimal.valueOf(5_000L + i % 200 * 1_000L))
+					.shop(shops.get(i % shops.size()))
+					.build());
+			if (batch.size() == 1_000) {
+				productRepository.saveAll(batch);
+				batch.clear();
+			}
+		}
+		productRepository.saveAll(batch);
+	}
+
+	@SpringBootConfiguration
+	@ImportAutoConfiguration({DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class,
+			TransactionAutoConfiguration.class})
+	@EntityScan(basePackageClasses = ProductEntity.class)
+	@EnableJpaRepositories(basePackageClasses = ProductRepository.class)
+	@Import(ProductFilterIndex.class)
+	static class BenchmarkConfig {
+	}
+}
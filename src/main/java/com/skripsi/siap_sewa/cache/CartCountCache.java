@@ -0,0 +1,62 @@
+package com.skripsi.siap_sewa.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Per-customer number of cart items behind the cart badge. A count is loaded once and
+ * then moved by the cart mutations instead of being recounted; the TTL only bounds
+ * drift from deletes that bypass the cart paths.
+ * Metrics are published with {@code cache=cartCount}.
+ */
+@Component
+public class CartCountCache {
+
+    private static final String CACHE_NAME = "cartCount";
+
+    private record Entry(long count, long loadedAt) {}
+
+    private final VersionedLruCache<String, Entry> cache;
+
+    public CartCountCache(MeterRegistry meterRegistry,
+                          @Value("${pintu.sewa.cart-count-cache.max-size:20000}") int maxSize,
+                          @Value("${pintu.sewa.cart-count-cache.ttl-ms:600000}") long ttlMillis) {
+        this.cache = new VersionedLruCache<>(CACHE_NAME, meterRegistry, maxSize,
+                entry -> System.currentTimeMillis() - entry.loadedAt() > ttlMillis);
+    }
+
+    /**
+     * Returns the cart item count of {@code customerId}, counting with {@code loader}
+     * when the customer has no live counter.
+     */
+    public long get(String customerId, LongSupplier loader) {
+        return cache.get(customerId,
+                () -> new Entry(loader.getAsLong(), System.currentTimeMillis())).count();
+    }
+
+    /**
+     * Moves the customer's counter by {@code delta}, after commit when called inside a
+     * transaction. A customer without a counter stays cold.
+     */
+    public void adjust(String customerId, int delta) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(customerId, delta);
+                }
+            });
+        } else {
+            apply(customerId, delta);
+        }
+    }
+
+    private void apply(String customerId, int delta) {
+        cache.update(customerId, entry -> new Entry(Math.max(0, entry.count() + delta), entry.loadedAt()));
+    }
+}
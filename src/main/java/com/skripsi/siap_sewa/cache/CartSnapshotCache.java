@@ -0,0 +1,47 @@
+package com.skripsi.siap_sewa.cache;
+
+import com.skripsi.siap_sewa.dto.cart.CartResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU cache of built {@link CartResponse}s keyed by customer id. Cart mutations
+ * invalidate the customer's entry; the TTL bounds how long the stock of products in
+ * someone else's cart can lag, and an entry built on an earlier day is never served
+ * because the rent date checks depend on today's date.
+ * Metrics are published with {@code cache=cart}.
+ */
+@Component
+public class CartSnapshotCache {
+
+    private static final String CACHE_NAME = "cart";
+
+    private record Entry(CartResponse response, long loadedAt, LocalDate builtOn) {}
+
+    private final VersionedLruCache<String, Entry> cache;
+
+    public CartSnapshotCache(MeterRegistry meterRegistry,
+                             @Value("${pintu.sewa.cart-cache.max-size:5000}") int maxSize,
+                             @Value("${pintu.sewa.cart-cache.ttl-ms:30000}") long ttlMillis) {
+        this.cache = new VersionedLruCache<>(CACHE_NAME, meterRegistry, maxSize,
+                entry -> System.currentTimeMillis() - entry.loadedAt() > ttlMillis
+                        || !entry.builtOn().equals(LocalDate.now()));
+    }
+
+    /**
+     * Returns the cached cart of {@code customerId}, building it with {@code loader}
+     * when absent, expired or built on an earlier day.
+     */
+    public CartResponse get(String customerId, Supplier<CartResponse> loader) {
+        return cache.get(customerId,
+                () -> new Entry(loader.get(), System.currentTimeMillis(), LocalDate.now())).response();
+    }
+
+    public void invalidate(String customerId) {
+        cache.invalidate(customerId);
+    }
+}
@@ -0,0 +1,149 @@
+package com.skripsi.siap_sewa.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-min sketch of searched keywords with a small heavy-hitter set on top, so the
+ * hottest keywords can be listed without storing a counter per distinct keyword.
+ * Counters are lock-free atomics; counts are halved every hour so the ranking
+ * follows current traffic.
+ */
+@Slf4j
+@Component
+public class KeywordFrequencySketch {
+
+    public record KeywordCount(String keyword, long count) {}
+
+    private static final int DEPTH = 4;
+    private static final int WIDTH_BITS = 11;
+    private static final int WIDTH = 1 << WIDTH_BITS;
+    private static final int TRACKED_KEYWORDS = 50;
+
+    private final AtomicLongArray counters = new AtomicLongArray(DEPTH * WIDTH);
+    private final int[] seeds = new int[DEPTH];
+
+    // Candidate heavy hitters with their latest estimate; trimmed back to TRACKED_KEYWORDS
+    private final Map<String, Long> heavyHitters = new ConcurrentHashMap<>();
+
+    public KeywordFrequencySketch() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < DEPTH; i++) {
+            seeds[i] = random.nextInt();
+        }
+    }
+
+    public void increment(String keyword) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(index(row, keyword)));
+        }
+        heavyHitters.put(keyword, estimate);
+        if (heavyHitters.size() > TRACKED_KEYWORDS * 2) {
+            trim();
+        }
+    }
+
+    public long estimate(String keyword) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters.get(index(row, keyword)));
+        }
+        return estimate;
+    }
+
+    public List<KeywordCount> top(int limit) {
+        return heavyHitters.keySet().stream()
+                .map(keyword -> new KeywordCount(keyword, estimate(keyword)))
+                .filter(count -> count.count() > 0)
+                .sorted(Comparator.comparingLong(KeywordCount::count).reversed()
+                        .thenComparing(KeywordCount::keyword))
+                .limit(limit)
+                .toList();
+    }
+
+    @Scheduled(fixedRate = 3_600_000, initialDelay = 3_600_000)
+    public void decay() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.getAndUpdate(i, count -> count >> 1);
+        }
+        heavyHitters.replaceAll((keyword, count) -> estimate(keyword));
+        heavyHitters.values().removeIf(count -> count == 0);
+        log.debug("Halved keyword sketch counters, {} keywords tracked", heavyHitters.size());
+    }
+
+    private synchronized void trim() {
+        if (heavyHitters.size() <= TRACKED_KEYWORDS * 2) {
+            return;
+        }
+        heavyHitters.entrySet().stream()
+                .sorted(Map.Entry.comparingByValue())
+                .limit(heavyHitters.size() - TRACKED_KEYWORDS)
+                .map(Map.Entry::getKey)
+                .toList()
+                .forEach(heavyHitters::remove);
+    }
+
+    private int index(int row, String keyword) {
+        // Each row hashes the keyword bytes with its own seed, so keywords colliding in
+        // one row (e.g. equal String.hashCode) are unlikely to collide in the others
+        int hash = murmur3(keyword.getBytes(StandardCharsets.UTF_8), seeds[row]);
+        int column = hash >>> (Integer.SIZE - WIDTH_BITS);
+        return row * WIDTH + column;
+    }
+
+    // MurmurHash3 x86 32-bit
+    static int murmur3(byte[] data, int seed) {
+        final int c1 = 0xcc9e2d51;
+        final int c2 = 0x1b873593;
+        int hash = seed;
+        int blocks = data.length / 4;
+
+        for (int i = 0; i < blocks; i++) {
+            int k = (data[i * 4] & 0xff)
+                    | (data[i * 4 + 1] & 0xff) << 8
+                    | (data[i * 4 + 2] & 0xff) << 16
+                    | (data[i * 4 + 3] & 0xff) << 24;
+            k *= c1;
+            k = Integer.rotateLeft(k, 15);
+            k *= c2;
+            hash ^= k;
+            hash = Integer.rotateLeft(hash, 13);
+            hash = hash * 5 + 0xe6546b64;
+        }
+
+        int k = 0;
+        int tail = blocks * 4;
+        switch (data.length & 3) {
+            case 3:
+                k ^= (data[tail + 2] & 0xff) << 16;
+            case 2:
+                k ^= (data[tail + 1] & 0xff) << 8;
+            case 1:
+                k ^= data[tail] & 0xff;
+                k *= c1;
+                k = Integer.rotateLeft(k, 15);
+                k *= c2;
+                hash ^= k;
+            default:
+                break;
+        }
+
+        hash ^= data.length;
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+}
@@ -0,0 +1,68 @@
+package com.skripsi.siap_sewa.cache;
+
+import com.skripsi.siap_sewa.dto.product.ProductDetailResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU cache of built {@link ProductDetailResponse}s keyed by product id.
+ * Entries expire after a TTL; independently of that, the stock of a cached entry
+ * is re-checked once it is older than the configured staleness bound.
+ * Metrics are published with {@code cache=productDetail}.
+ */
+@Component
+public class ProductDetailCache {
+
+    private static final String CACHE_NAME = "productDetail";
+
+    private record Entry(ProductDetailResponse response, long loadedAt, long stockCheckedAt) {}
+
+    private final long stockMaxStalenessMillis;
+    private final VersionedLruCache<String, Entry> cache;
+
+    public ProductDetailCache(MeterRegistry meterRegistry,
+                              @Value("${pintu.sewa.product-detail-cache.max-size:10000}") int maxSize,
+                              @Value("${pintu.sewa.product-detail-cache.ttl-ms:600000}") long ttlMillis,
+                              @Value("${pintu.sewa.product-detail-cache.stock-max-staleness-ms:5000}") long stockMaxStalenessMillis) {
+        this.stockMaxStalenessMillis = stockMaxStalenessMillis;
+        this.cache = new VersionedLruCache<>(CACHE_NAME, meterRegistry, maxSize,
+                entry -> System.currentTimeMillis() - entry.loadedAt() > ttlMillis);
+    }
+
+    /**
+     * Returns the cached detail for {@code productId}, loading it when absent or expired.
+     * When the entry's stock is older than the staleness bound, {@code currentStock} is
+     * queried and the entry is reloaded if the stock moved.
+     */
+    public ProductDetailResponse get(String productId,
+                                     Supplier<ProductDetailResponse> loader,
+                                     Supplier<Optional<Integer>> currentStock) {
+        return cache.get(productId,
+                () -> {
+                    long now = System.currentTimeMillis();
+                    return new Entry(loader.get(), now, now);
+                },
+                entry -> {
+                    long now = System.currentTimeMillis();
+                    if (now - entry.stockCheckedAt() <= stockMaxStalenessMillis) {
+                        return entry;
+                    }
+                    Optional<Integer> stock = currentStock.get();
+                    return stock.isPresent() && stock.get() == entry.response().getStock()
+                            ? new Entry(entry.response(), entry.loadedAt(), now)
+                            : null;
+                }).response();
+    }
+
+    public void invalidate(String productId) {
+        cache.invalidate(productId);
+    }
+
+    public void invalidateAll(Iterable<String> productIds) {
+        productIds.forEach(this::invalidate);
+    }
+}
@@ -0,0 +1,98 @@
+package com.skripsi.siap_sewa.cache;
+
+import com.skripsi.siap_sewa.dto.SearchResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Short-lived LRU cache of search responses keyed by normalized keyword. Each entry
+ * remembers the search index version it was computed from, so any product or shop
+ * change makes it a miss without explicit invalidation.
+ */
+@Component
+public class SearchResultCache {
+
+    private static final String CACHE_NAME = "searchResult";
+
+    private record Entry(SearchResponse response, long indexVersion, long loadedAt) {}
+
+    private final long ttlMillis;
+    private final Map<String, Entry> entries;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public SearchResultCache(MeterRegistry meterRegistry,
+                             @Value("${pintu.sewa.search.cache.max-size:1000}") int maxSize,
+                             @Value("${pintu.sewa.search.cache.ttl-ms:30000}") long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+
+        Counter sizeEvictions = Counter.builder("cache.evictions")
+                .tag("cache", CACHE_NAME)
+                .tag("cause", "size")
+                .register(meterRegistry);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > maxSize) {
+                    sizeEvictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        this.hits = Counter.builder("cache.gets").tag("cache", CACHE_NAME).tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("cache.gets").tag("cache", CACHE_NAME).tag("result", "miss").register(meterRegistry);
+        Gauge.builder("cache.size", this, SearchResultCache::size)
+                .tag("cache", CACHE_NAME)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Cached response for {@code keyword} computed from index version {@code indexVersion}
+     * and younger than the TTL, or null.
+     */
+    public SearchResponse get(String keyword, long indexVersion) {
+        SearchResponse response = lookup(keyword, indexVersion);
+        (response != null ? hits : misses).increment();
+        return response;
+    }
+
+    /**
+     * Whether {@code keyword} has a cached response for {@code indexVersion} that will still
+     * be within the TTL {@code forMillis} from now.
+     */
+    public synchronized boolean freshFor(String keyword, long indexVersion, long forMillis) {
+        if (lookup(keyword, indexVersion) == null) {
+            return false;
+        }
+        return System.currentTimeMillis() + forMillis - entries.get(keyword).loadedAt() <= ttlMillis;
+    }
+
+    public synchronized void put(String keyword, long indexVersion, SearchResponse response) {
+        entries.put(keyword, new Entry(response, indexVersion, System.currentTimeMillis()));
+    }
+
+    private synchronized SearchResponse lookup(String keyword, long indexVersion) {
+        Entry entry = entries.get(keyword);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.indexVersion() != indexVersion || System.currentTimeMillis() - entry.loadedAt() > ttlMillis) {
+            entries.remove(keyword);
+            return null;
+        }
+        return entry.response();
+    }
+
+    private synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,190 @@
+package com.skripsi.siap_sewa.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Bounded LRU map shared by the application caches. Entries are dropped when the
+ * {@code expired} predicate says so or when the size bound is hit.
+ * <p>
+ * A load runs outside the lock and is only stored if its key was not invalidated or
+ * updated meanwhile. Versions are tracked per key, and only while a load of that key is
+ * in flight, so a change to one key never discards loads of other keys.
+ * <p>
+ * Metrics are published as cache.gets / cache.evictions / cache.size tagged with the
+ * cache name, the same names Spring's cache metrics use.
+ */
+@Slf4j
+public class VersionedLruCache<K, V> {
+
+    // Loads of one key in flight and the key's version when the oldest of them started
+    private static final class InFlight {
+        private long version;
+        private int loads;
+    }
+
+    private final String name;
+    private final int maxSize;
+    private final Predicate<V> expired;
+
+    // Both guarded by this
+    private final Map<K, V> entries;
+    private final Map<K, InFlight> inFlight = new HashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter expiredEvictions;
+
+    public VersionedLruCache(String name, MeterRegistry meterRegistry, int maxSize, Predicate<V> expired) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.expired = expired;
+
+        this.hits = cacheCounter(meterRegistry, "cache.gets", "result", "hit");
+        this.misses = cacheCounter(meterRegistry, "cache.gets", "result", "miss");
+        this.sizeEvictions = cacheCounter(meterRegistry, "cache.evictions", "cause", "size");
+        this.expiredEvictions = cacheCounter(meterRegistry, "cache.evictions", "cause", "expired");
+
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() > VersionedLruCache.this.maxSize) {
+                    sizeEvictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        Gauge.builder("cache.size", this, VersionedLruCache::size)
+                .tag("cache", name)
+                .register(meterRegistry);
+    }
+
+    public V get(K key, Supplier<V> loader) {
+        return get(key, loader, UnaryOperator.identity());
+    }
+
+    /**
+     * Returns the entry of {@code key}, loading it when absent or expired. A present entry
+     * is passed through {@code revalidate} first, which returns the entry to serve (kept in
+     * place of the old one) or null to load it again.
+     */
+    public V get(K key, Supplier<V> loader, UnaryOperator<V> revalidate) {
+        V entry = lookup(key);
+        if (entry != null) {
+            V revalidated = revalidate.apply(entry);
+            if (revalidated != null) {
+                if (revalidated != entry) {
+                    replace(key, entry, revalidated);
+                }
+                hits.increment();
+                return revalidated;
+            }
+        }
+
+        misses.increment();
+        long version = startLoad(key);
+        V loaded = null;
+        try {
+            loaded = loader.get();
+            return loaded;
+        } finally {
+            finishLoad(key, version, loaded);
+        }
+    }
+
+    /**
+     * Drops the entry now and, inside a transaction, once more after commit so a
+     * concurrent reader cannot re-cache the pre-commit state.
+     */
+    public void invalidate(K key) {
+        remove(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remove(key);
+                }
+            });
+        }
+    }
+
+    /**
+     * Replaces a present entry with {@code update} applied to it; an absent key stays absent.
+     * Loads of the key in flight are not stored.
+     */
+    public synchronized void update(K key, UnaryOperator<V> update) {
+        bumpVersion(key);
+        entries.computeIfPresent(key, (k, entry) -> update.apply(entry));
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private synchronized V lookup(K key) {
+        V entry = entries.get(key);
+        if (entry != null && expired.test(entry)) {
+            entries.remove(key);
+            expiredEvictions.increment();
+            return null;
+        }
+        return entry;
+    }
+
+    private synchronized void replace(K key, V entry, V replacement) {
+        entries.replace(key, entry, replacement);
+    }
+
+    private synchronized void remove(K key) {
+        bumpVersion(key);
+        entries.remove(key);
+    }
+
+    private void bumpVersion(K key) {
+        InFlight loads = inFlight.get(key);
+        if (loads != null) {
+            loads.version++;
+        }
+    }
+
+    private synchronized long startLoad(K key) {
+        InFlight loads = inFlight.computeIfAbsent(key, k -> new InFlight());
+        loads.loads++;
+        return loads.version;
+    }
+
+    private synchronized void finishLoad(K key, long version, V loaded) {
+        InFlight loads = inFlight.get(key);
+        if (loaded != null) {
+            if (loads.version == version) {
+                entries.put(key, loaded);
+            } else {
+                log.debug("Skipping {} cache store for {}: changed while loading", name, key);
+            }
+        }
+        if (--loads.loads == 0) {
+            inFlight.remove(key);
+        }
+    }
+
+    private Counter cacheCounter(MeterRegistry meterRegistry, String meterName, String tagKey, String tagValue) {
+        return Counter.builder(meterName)
+                .tag("cache", name)
+                .tag(tagKey, tagValue)
+                .register(meterRegistry);
+    }
+}
@@ -1,11 +1,13 @@
 package com.skripsi.siap_sewa.config; // Anda bisa letakkan di package config
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableAsync
@@ -21,4 +23,31 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
+
+    @Bean(name = "reviewImageExecutor")
+    public Executor reviewImageExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(200);
+        executor.setThreadNamePrefix("ReviewImage-");
+        // A full queue rejects the upload (the review is marked failed) rather than uploading on the request thread
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "reviewTopicBackfillExecutor")
+    public Executor reviewTopicBackfillExecutor(
+            @Value("${pintu.sewa.review-topics.backfill.parallelism:4}") int parallelism) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        // One thread reads the chunks, the others tag them; idle threads exit once the run is over
+        executor.setCorePoolSize(parallelism + 1);
+        executor.setMaxPoolSize(parallelism + 1);
+        executor.setQueueCapacity(parallelism);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix("ReviewTopicBackfill-");
+        executor.initialize();
+        return executor;
+    }
 }
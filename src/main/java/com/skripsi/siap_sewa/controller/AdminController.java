@@ -5,6 +5,7 @@ import com.skripsi.siap_sewa.dto.admin.AdminLoginRequest;
 import com.skripsi.siap_sewa.dto.customer.EditCustomerRequest;
 import com.skripsi.siap_sewa.dto.shop.EditShopRequest;
 import com.skripsi.siap_sewa.service.AdminService;
+import com.skripsi.siap_sewa.service.SearchService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -19,6 +20,7 @@ import org.springframework.web.bind.annotation.*;
 public class AdminController {
     private final BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(12);
     private final AdminService adminService;
+    private final SearchService searchService;
 
     @PostMapping("/login")
     public ResponseEntity<ApiResponse> loginAdmin(@RequestBody @Valid AdminLoginRequest request) {
@@ -32,6 +34,12 @@ public class AdminController {
         return adminService.viewDashboard();
     }
 
+    @GetMapping("/search/top-keywords")
+    public ResponseEntity<ApiResponse> getTopSearchKeywords(@RequestParam(defaultValue = "10") int limit) {
+        log.info("Get Top {} Search Keywords", limit);
+        return searchService.getTopKeywords(limit);
+    }
+
     @GetMapping("/manage-customer/{page}")
     public ResponseEntity<ApiResponse> getAllCustomers(@PathVariable int page) {
         log.info("Get All Customer Data Page : {}", page);
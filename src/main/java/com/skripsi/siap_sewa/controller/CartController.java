@@ -24,6 +24,11 @@ public class CartController {
         return cartService.getAllCartProductByCustomerId(customerId);
     }
 
+    @GetMapping("/{customerId}/count")
+    public ResponseEntity<ApiResponse> getCartItemCount(@PathVariable String customerId) {
+        return cartService.getCartItemCount(customerId);
+    }
+
     @PostMapping("/add")
     public ResponseEntity<ApiResponse> addProductToCart(@RequestBody @Valid AddCartRequest request) {
         log.info("Add product to cart request: {}", request);
@@ -63,12 +63,14 @@ public class ProductController {
             @RequestParam(defaultValue = "name") String sortBy,
             @RequestParam(defaultValue = "ASC") Sort.Direction sortDirection,
             @RequestParam(defaultValue = "1") int page,
-            @RequestParam(defaultValue = "16") int size) {
+            @RequestParam(defaultValue = "16") int size,
+            @RequestParam(defaultValue = "false") boolean cursorMode,
+            @RequestParam(required = false) String cursor) {
 
         try {
             // Validate sort field
             List<String> validSortFields = List.of("name", "dailyPrice", "weeklyPrice",
-                    "monthlyPrice", "rating", "rentedTimes");
+                    "monthlyPrice", "lowestPrice", "rating", "rentedTimes");
 
             if (!validSortFields.contains(sortBy)) {
                 log.warn("Invalid sort field: {}. Defaulting to 'name'", sortBy);
@@ -88,6 +90,8 @@ public class ProductController {
                     .sortDirection(sortDirection)
                     .page(page)
                     .size(size)
+                    .cursorMode(cursorMode || cursor != null)
+                    .cursor(cursor)
                     .build();
 
             filterRequest.validate();
@@ -101,6 +105,37 @@ public class ProductController {
         }
     }
 
+    @GetMapping("/filter/facets")
+    public ResponseEntity<ApiResponse> getFilterFacets(
+            @RequestParam(required = false) List<String> categories,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) List<Integer> rentDurations,
+            @RequestParam(required = false) List<String> locations,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) List<Boolean> isRnbOptions,
+            @RequestParam(required = false) List<Double> minRatings) {
+
+        try {
+            ProductFilterRequest filterRequest = ProductFilterRequest.builder()
+                    .categories(categories)
+                    .name(name)
+                    .rentDurations(rentDurations)
+                    .provinces(locations)
+                    .minPrice(minPrice)
+                    .maxPrice(maxPrice)
+                    .isRnbOptions(isRnbOptions)
+                    .minRatings(minRatings)
+                    .build();
+
+            filterRequest.validateFilters();
+            return productFilterService.getFacetCounts(filterRequest);
+        } catch (IllegalArgumentException e) {
+            log.error("Validation error in facet request: {}", e.getMessage());
+            return commonUtils.setResponse(ErrorMessageEnum.FAILED, e.getMessage());
+        }
+    }
+
 //    for prodcut detail page
     @GetMapping("/{productId}")
     public ResponseEntity<ApiResponse> getProductDetail(@PathVariable String productId){
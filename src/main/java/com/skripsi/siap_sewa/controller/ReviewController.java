@@ -31,7 +31,9 @@ public class ReviewController {
             @RequestParam(defaultValue = "DESC") Sort.Direction sortDirection,
             @RequestParam(required = false) Boolean hasMedia,
             @RequestParam(required = false) Integer rating,
-            @RequestParam(required = false) List<String> reviewTopics) {
+            @RequestParam(required = false) List<String> reviewTopics,
+            @RequestParam(defaultValue = "false") boolean cursorMode,
+            @RequestParam(required = false) String cursor) {
 
         log.info("Fetching reviews for product ID: {} with params - page: {}, size: {}, sort: {} {}, hasMedia: {}, rating: {}, topics: {}",
                 productId, page, size, sortBy, sortDirection, hasMedia, rating, reviewTopics);
@@ -44,6 +46,8 @@ public class ReviewController {
                 .hasMedia(hasMedia)
                 .rating(rating)
                 .reviewTopics(reviewTopics)
+                .cursorMode(cursorMode || cursor != null)
+                .cursor(cursor)
                 .build();
 
         return reviewService.getReviewsByProductId(productId, request);
@@ -58,7 +62,9 @@ public class ReviewController {
             @RequestParam(defaultValue = "DESC") Sort.Direction sortDirection,
             @RequestParam(required = false) Boolean hasMedia,
             @RequestParam(required = false) Integer rating,
-            @RequestParam(required = false) List<String> reviewTopics) {
+            @RequestParam(required = false) List<String> reviewTopics,
+            @RequestParam(defaultValue = "false") boolean cursorMode,
+            @RequestParam(required = false) String cursor) {
 
         log.info("Fetching reviews for shop ID: {} with params - page: {}, size: {}, sort: {} {}, hasMedia: {}, rating: {}, topics: {}",
                 shopId, page, size, sortBy, sortDirection, hasMedia, rating, reviewTopics);
@@ -71,11 +77,23 @@ public class ReviewController {
                 .hasMedia(hasMedia)
                 .rating(rating)
                 .reviewTopics(reviewTopics)
+                .cursorMode(cursorMode || cursor != null)
+                .cursor(cursor)
                 .build();
 
         return reviewService.getReviewsByShopId(shopId, request);
     }
 
+    @GetMapping("/product/{productId}/breakdown")
+    public ResponseEntity<ApiResponse> getRatingBreakdownByProductId(@PathVariable String productId) {
+        return reviewService.getRatingBreakdownByProductId(productId);
+    }
+
+    @GetMapping("/shop/{shopId}/breakdown")
+    public ResponseEntity<ApiResponse> getRatingBreakdownByShopId(@PathVariable String shopId) {
+        return reviewService.getRatingBreakdownByShopId(shopId);
+    }
+
     @PostMapping(value ="/add", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<ApiResponse> addReview(AddReviewRequest request) throws IOException {
         return reviewService.addReview(request);
@@ -18,7 +18,13 @@ public class SearchController {
     private final SearchService searchService;
 
     @GetMapping
-    public ResponseEntity<ApiResponse> searchShopAndProduct(@RequestParam String keyword) {
+    public ResponseEntity<ApiResponse> searchShopAndProduct(
+            @RequestParam String keyword,
+            @RequestParam(defaultValue = "false") boolean typeahead,
+            @RequestParam(defaultValue = "5") int limit) {
+        if (typeahead) {
+            return searchService.typeahead(keyword, limit);
+        }
         return searchService.searchShopAndProduct(keyword);
     }
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.skripsi.siap_sewa.dto;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public class TypeaheadResponse {
+    private List<Suggestion> products;
+    private List<Suggestion> shops;
+
+    @Data
+    @Builder
+    public static class Suggestion {
+        private String id;
+        private String name;
+        private String image;
+    }
+}
@@ -0,0 +1,27 @@
+package com.skripsi.siap_sewa.dto.product;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Product counts per facet value. Each facet is counted with every filter applied
+ * except its own selection, so the counts show what selecting another value would return.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public class ProductFacetResponse {
+    private long totalItems;
+    private Map<String, Long> categories;
+    private Map<String, Long> provinces;
+    private Map<Integer, Long> rentDurations;
+    private Map<Boolean, Long> isRnbOptions;
+}
@@ -12,7 +12,7 @@ import java.util.Objects;
 
 @Getter
 @Setter
-@Builder
+@Builder(toBuilder = true)
 @AllArgsConstructor
 @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
 public class ProductFilterRequest {
@@ -29,6 +29,8 @@ public class ProductFilterRequest {
     private int page;
     private int size;
     private String shopId;
+    private boolean cursorMode;
+    private String cursor;
 
     public void validate() {
         
@@ -40,6 +42,10 @@ public class ProductFilterRequest {
             throw new IllegalArgumentException("Page size must be between 1 and 100");
         }
 
+        validateFilters();
+    }
+
+    public void validateFilters() {
         if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
             throw new IllegalArgumentException("Minimum price cannot be greater than maximum price");
         }
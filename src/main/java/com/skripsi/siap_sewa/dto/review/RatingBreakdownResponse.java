@@ -0,0 +1,22 @@
+package com.skripsi.siap_sewa.dto.review;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public class RatingBreakdownResponse {
+    private int reviewCount;
+    private Double averageRating;
+    // Stars (5 down to 1) to number of reviews
+    private Map<Integer, Integer> ratingCounts;
+}
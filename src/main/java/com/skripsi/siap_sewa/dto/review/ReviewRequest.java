@@ -31,4 +31,7 @@ public class ReviewRequest {
     private Boolean hasMedia; 
     private Integer rating; 
     private List<String> reviewTopics; 
+
+    private boolean cursorMode;
+    private String cursor;
 }
\ No newline at end of file
@@ -9,7 +9,9 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "CART")
+@Table(name = "CART", indexes = {
+        @Index(name = "idx_cart_customer_created", columnList = "customer_id, created_at DESC")
+})
 @Data
 @Builder
 @NoArgsConstructor
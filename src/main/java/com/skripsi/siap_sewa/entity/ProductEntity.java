@@ -5,6 +5,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import com.fasterxml.jackson.databind.PropertyNamingStrategies;
 import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import com.skripsi.siap_sewa.helper.ProductHelper;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -15,14 +16,16 @@ import java.util.List;
 import java.util.Set;
 
 @Entity
-@Table(name = "PRODUCT")
+@Table(name = "PRODUCT", indexes = {
+        @Index(name = "idx_product_category_lowest_price", columnList = "category, lowest_price")
+})
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
-@ToString(exclude = {"shop", "transactions", "reviews"})
+@ToString(exclude = {"shop", "transactions", "reviews", "stats"})
 public class ProductEntity {
 
     @EqualsAndHashCode.Include
@@ -41,6 +44,8 @@ public class ProductEntity {
     private BigDecimal dailyPrice;
     private BigDecimal weeklyPrice;
     private BigDecimal monthlyPrice;
+    // Smallest non-zero of the three rent prices, kept in sync by syncLowestPrice
+    private BigDecimal lowestPrice;
     private BigDecimal buyPrice;
     private String description;
     private String conditionDescription;
@@ -60,6 +65,13 @@ public class ProductEntity {
     @JoinColumn(name = "shop_id", referencedColumnName = "id")
     private ShopEntity shop;
 
+    // Read-only view of the PRODUCT_STATS row, used for filtering and sorting by rating
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "id", referencedColumnName = "product_id", insertable = false, updatable = false,
+            foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    @JsonIgnore
+    private ProductStatsEntity stats;
+
     @ManyToMany(mappedBy = "products")
     @JsonBackReference
     private Set<TransactionEntity> transactions;
@@ -68,4 +80,10 @@ public class ProductEntity {
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonManagedReference
     private List<ReviewEntity> reviews = new ArrayList<>();
+
+    @PrePersist
+    @PreUpdate
+    public void syncLowestPrice() {
+        this.lowestPrice = ProductHelper.getLowestPrice(dailyPrice, weeklyPrice, monthlyPrice);
+    }
 }
\ No newline at end of file
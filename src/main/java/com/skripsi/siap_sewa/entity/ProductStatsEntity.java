@@ -0,0 +1,45 @@
+package com.skripsi.siap_sewa.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "PRODUCT_STATS", indexes = {
+        @Index(name = "idx_product_stats_rented", columnList = "rented_count DESC, product_id"),
+        @Index(name = "idx_product_stats_weighted_rating", columnList = "weighted_rating DESC, product_id")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class ProductStatsEntity {
+
+    @EqualsAndHashCode.Include
+    @Id
+    @Column(name = "product_id")
+    private String productId;
+
+    private int reviewCount;
+    private double ratingSum;
+    private double weightedRating;
+    private int rentedCount;
+    private int boughtCount;
+
+    // Rating histogram: reviews per star, a rating of n.x counting as n stars
+    private int oneStarCount;
+    private int twoStarCount;
+    private int threeStarCount;
+    private int fourStarCount;
+    private int fiveStarCount;
+
+    private LocalDateTime lastUpdateAt;
+
+    public static ProductStatsEntity empty(String productId) {
+        return ProductStatsEntity.builder()
+                .productId(productId)
+                .build();
+    }
+}
@@ -10,7 +10,11 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "REVIEW")
+@Table(name = "REVIEW", indexes = {
+        @Index(name = "idx_review_product_topic_mask", columnList = "product_id, topic_mask"),
+        @Index(name = "idx_review_product_created", columnList = "product_id, created_at DESC, id DESC"),
+        @Index(name = "idx_review_shop_created", columnList = "shop_id, created_at DESC, id DESC")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -33,13 +37,24 @@ public class ReviewEntity {
     @JsonBackReference
     private ProductEntity product;
 
+    // Shop of the product, copied at write time so shop listings need no product join to filter
+    @Column(name = "shop_id")
+    private String shopId;
+
     @Column(columnDefinition = "TEXT")
     private String comment;
 
     private String image;
 
+    // Constant.REVIEW_IMAGE_*: the image is uploaded after the review is saved; null when there is none
+    private String imageStatus;
+
     private Double rating;
 
+    // ReviewTopicEnum bits mentioned in the comment; null until extracted (see ReviewTopicBackfillService)
+    @Column(name = "topic_mask")
+    private Integer topicMask;
+
     @CreationTimestamp
 //    @Column(name = "created_at", updatable = false)
     @JsonIgnore
@@ -0,0 +1,42 @@
+package com.skripsi.siap_sewa.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Review totals and rating histogram over all products of a shop, maintained
+ * by ProductStatsService as reviews are written.
+ */
+@Entity
+@Table(name = "SHOP_RATING_STATS")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class ShopRatingStatsEntity {
+
+    @EqualsAndHashCode.Include
+    @Id
+    @Column(name = "shop_id")
+    private String shopId;
+
+    private int reviewCount;
+    private double ratingSum;
+
+    private int oneStarCount;
+    private int twoStarCount;
+    private int threeStarCount;
+    private int fourStarCount;
+    private int fiveStarCount;
+
+    private LocalDateTime lastUpdateAt;
+
+    public static ShopRatingStatsEntity empty(String shopId) {
+        return ShopRatingStatsEntity.builder()
+                .shopId(shopId)
+                .build();
+    }
+}
@@ -0,0 +1,70 @@
+package com.skripsi.siap_sewa.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Review topics shown as filter chips. A review's topics are stored as a bitmask
+ * in REVIEW.topic_mask, one bit per topic.
+ */
+@AllArgsConstructor
+@Getter
+public enum ReviewTopicEnum {
+    KONDISI_BARANG("kondisi barang"),
+    DURASI_PENGIRIMAN("durasi pengiriman");
+
+    private final String label;
+
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * Topics a comment mentions, as a bitmask.
+     */
+    public static int extract(String comment) {
+        if (comment == null) {
+            return 0;
+        }
+        String text = comment.toLowerCase(Locale.ROOT);
+        int mask = 0;
+        for (ReviewTopicEnum topic : values()) {
+            if (text.contains(topic.label)) {
+                mask |= topic.bit();
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Bitmask of the topics with the given labels; unknown labels are ignored.
+     */
+    public static int maskOf(Collection<String> labels) {
+        int mask = 0;
+        for (ReviewTopicEnum topic : values()) {
+            if (labels.contains(topic.label)) {
+                mask |= topic.bit();
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Every stored mask sharing at least one topic with {@code selection}, so that a
+     * topic filter is an equality (IN) check on the indexed column.
+     */
+    public static List<Integer> masksMatching(int selection) {
+        List<Integer> masks = new ArrayList<>();
+        for (int mask = 1; mask < 1 << values().length; mask++) {
+            if ((mask & selection) != 0) {
+                masks.add(mask);
+            }
+        }
+        return masks;
+    }
+}
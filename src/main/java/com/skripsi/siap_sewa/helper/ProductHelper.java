@@ -1,9 +1,10 @@
 package com.skripsi.siap_sewa.helper;
 
-import com.skripsi.siap_sewa.dto.product.ProductResponse;
 import com.skripsi.siap_sewa.entity.ProductEntity;
+import com.skripsi.siap_sewa.entity.ProductStatsEntity;
 import com.skripsi.siap_sewa.entity.ReviewEntity;
 import com.skripsi.siap_sewa.entity.TransactionEntity;
+import com.skripsi.siap_sewa.repository.projection.ProductCardView;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -11,10 +12,12 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Stream;
 
-import static com.skripsi.siap_sewa.utils.CommonUtils.getRentDurationName;
 
 public class ProductHelper {
 
+    public static final double MINIMUM_VOTES = 2.0;
+    public static final double GLOBAL_AVERAGE_RATING = 3.5;
+
     public static Double calculateWeightedRating(List<ReviewEntity> reviews) {
         if (reviews == null || reviews.isEmpty()) {
             return 0.0;
@@ -25,13 +28,26 @@ public class ProductHelper {
                 .average()
                 .orElse(0.0);
 
-        int numberOfReviews = reviews.size();
+        return weightedRating(reviews.size(), averageRating);
+    }
+
+    public static Double calculateWeightedRating(ProductStatsEntity stats) {
+        if (stats == null) {
+            return 0.0;
+        }
+        return calculateWeightedRating(stats.getReviewCount(), stats.getRatingSum());
+    }
 
-        double minimumVotes = 2.0;       
-        double globalAverageRating = 3.5; 
+    public static Double calculateWeightedRating(Integer reviewCount, Double ratingSum) {
+        if (reviewCount == null || reviewCount == 0 || ratingSum == null) {
+            return 0.0;
+        }
+        return weightedRating(reviewCount, ratingSum / reviewCount);
+    }
 
-        double weightedRating = (numberOfReviews / (numberOfReviews + minimumVotes)) * averageRating +
-                (minimumVotes / (numberOfReviews + minimumVotes)) * globalAverageRating;
+    private static Double weightedRating(int numberOfReviews, double averageRating) {
+        double weightedRating = (numberOfReviews / (numberOfReviews + MINIMUM_VOTES)) * averageRating +
+                (MINIMUM_VOTES / (numberOfReviews + MINIMUM_VOTES)) * GLOBAL_AVERAGE_RATING;
 
         return Math.round(weightedRating * 10) / 10.0;
     }
@@ -61,30 +77,27 @@ public class ProductHelper {
     }
 
     public static BigDecimal getLowestPrice(ProductEntity product) {
+        if (product.getLowestPrice() != null) {
+            return product.getLowestPrice();
+        }
+        return getLowestPrice(product.getDailyPrice(), product.getWeeklyPrice(), product.getMonthlyPrice());
+    }
+
+    public static BigDecimal getLowestPrice(ProductCardView card) {
+        if (card.lowestPrice() != null) {
+            return card.lowestPrice();
+        }
+        return getLowestPrice(card.dailyPrice(), card.weeklyPrice(), card.monthlyPrice());
+    }
+
+    public static BigDecimal getLowestPrice(BigDecimal dailyPrice, BigDecimal weeklyPrice, BigDecimal monthlyPrice) {
         
         final BigDecimal ABSENT_PRICE = BigDecimal.ZERO;
 
-        return Stream.of(product.getDailyPrice(), product.getWeeklyPrice(), product.getMonthlyPrice())
+        return Stream.of(dailyPrice, weeklyPrice, monthlyPrice)
                 .map(price -> Optional.ofNullable(price).orElse(ABSENT_PRICE))
                 .filter(price -> price.compareTo(ABSENT_PRICE) != 0)
                 .min(BigDecimal::compareTo)
                 .orElse(ABSENT_PRICE);
     }
-
-    public static ProductResponse convertToResponse(ProductEntity product) {
-        return ProductResponse.builder()
-                .id(product.getId())
-                .name(product.getName())
-
-                .rentCategory(getRentDurationName(product.getRentCategory()))
-                .isRnb(product.isRnb())
-                .image(product.getImage())
-                .address(product.getShop() != null ? product.getShop().getRegency() : null)
-                .rating(calculateWeightedRating(product.getReviews()))
-                .rentedTimes(countRentedTimes(product.getTransactions()))
-                .price(getLowestPrice(product))
-                .build();
-    }
-
-
-}
\ No newline at end of file
+}
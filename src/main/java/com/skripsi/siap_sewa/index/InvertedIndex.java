@@ -0,0 +1,320 @@
+package com.skripsi.siap_sewa.index;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Trigram inverted index over a few text fields per document. The posting lists of the
+ * query trigrams are intersected, and the documents having all of them are scored as
+ * exact matches against the fields in priority order (the first field weighs most).
+ * Only when that leaves the page short are the documents sharing any query trigram
+ * checked as typo matches, kept when their word-level trigram similarity reaches the
+ * threshold; each word's padded trigrams are computed once, at index time.
+ * A sorted word map next to it answers prefix (typeahead) lookups.
+ * Reads are lock-free; writes are serialized.
+ */
+class InvertedIndex<D> {
+
+    private record Entry<D>(D document, List<String> fields, Set<String> words, List<Set<String>> wordGrams,
+                            Set<String> grams, String sortKey) {}
+
+    // score > 0 for exact matches; typo matches have score 0 and rank by similarity
+    private record Match<D>(Entry<D> entry, int score, double similarity) {}
+
+    private static final Comparator<Match<?>> RANKING = Comparator.<Match<?>>comparingInt(Match::score).reversed()
+            .thenComparing(Comparator.<Match<?>>comparingDouble(Match::similarity).reversed())
+            .thenComparing(match -> match.entry().sortKey());
+
+    // Upper bound on the postings one typeahead lookup looks at
+    private static final int MAX_SCANNED = 10_000;
+
+    private final Map<String, Entry<D>> entries = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> postings = new ConcurrentHashMap<>();
+    private final NavigableMap<String, Set<String>> words = new ConcurrentSkipListMap<>();
+
+    synchronized void put(String id, D document, String... texts) {
+        remove(id);
+
+        List<String> fields = new ArrayList<>(texts.length);
+        Set<String> fieldWords = new HashSet<>();
+        Set<String> grams = new HashSet<>();
+        for (String text : texts) {
+            String field = SearchText.normalize(text);
+            fields.add(field == null ? "" : field);
+            if (field != null) {
+                for (String word : field.split(" ")) {
+                    fieldWords.add(word);
+                    SearchText.addGrams(word, grams);
+                }
+            }
+        }
+
+        for (String gram : grams) {
+            postings.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+        for (String word : fieldWords) {
+            words.computeIfAbsent(word, key -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+        List<Set<String>> wordGrams = fieldWords.stream().map(SearchText::paddedGrams).toList();
+        entries.put(id, new Entry<>(document, List.copyOf(fields), fieldWords, wordGrams, grams, fields.get(0)));
+    }
+
+    synchronized void remove(String id) {
+        Entry<D> previous = entries.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (String gram : previous.grams()) {
+            removePosting(postings, gram, id);
+        }
+        for (String word : previous.words()) {
+            removePosting(words, word, id);
+        }
+    }
+
+    private static void removePosting(Map<String, Set<String>> index, String key, String id) {
+        index.computeIfPresent(key, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        postings.clear();
+        words.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Ranked search: exact matches first, then documents whose words are within
+     * {@code minSimilarity} trigram similarity of the query words.
+     */
+    List<D> search(String keyword, int limit, double minSimilarity) {
+        String query = SearchText.normalize(keyword);
+        if (query == null || limit <= 0) {
+            return List.of();
+        }
+        List<String> queryTokens = SearchText.tokens(query);
+
+        Set<String> queryGrams = new HashSet<>();
+        queryTokens.forEach(token -> SearchText.addGrams(token, queryGrams));
+
+        // Worst match at the head, so the queue never holds more than limit entries
+        PriorityQueue<Match<D>> top = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        if (queryGrams.isEmpty()) {
+            // Words shorter than a trigram: narrow to documents with a word starting with each of them
+            for (String id : startingWithAll(queryTokens)) {
+                Entry<D> entry = entries.get(id);
+                if (entry != null) {
+                    offer(top, exactMatch(entry, query, queryTokens), limit);
+                }
+            }
+        } else {
+            Set<String> exactIds = new HashSet<>();
+            for (String id : containingAll(postings, queryGrams)) {
+                Entry<D> entry = entries.get(id);
+                Match<D> match = entry == null ? null : exactMatch(entry, query, queryTokens);
+                if (match != null) {
+                    exactIds.add(id);
+                    offer(top, match, limit);
+                }
+            }
+
+            // Typo matches rank below every exact match, so they are only needed to fill the page
+            if (exactIds.size() < limit) {
+                List<Set<String>> tokenGrams = queryTokens.stream().map(SearchText::paddedGrams).toList();
+                for (String id : containingAny(postings, queryGrams)) {
+                    Entry<D> entry = exactIds.contains(id) ? null : entries.get(id);
+                    if (entry != null) {
+                        offer(top, typoMatch(entry, tokenGrams, minSimilarity), limit);
+                    }
+                }
+            }
+        }
+
+        List<Match<D>> matches = new ArrayList<>(top);
+        matches.sort(RANKING);
+        return matches.stream().map(match -> match.entry().document()).toList();
+    }
+
+    private static <D> void offer(PriorityQueue<Match<D>> top, Match<D> match, int limit) {
+        if (match == null) {
+            return;
+        }
+        top.add(match);
+        if (top.size() > limit) {
+            top.poll();
+        }
+    }
+
+    private Set<String> startingWithAll(List<String> prefixes) {
+        Set<String> result = null;
+        for (String prefix : prefixes) {
+            Set<String> ids = new HashSet<>();
+            for (Set<String> posting : words.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values()) {
+                if (result == null) {
+                    ids.addAll(posting);
+                } else {
+                    posting.stream().filter(result::contains).forEach(ids::add);
+                }
+            }
+            result = ids;
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result == null ? Set.of() : result;
+    }
+
+    private static Set<String> containingAny(Map<String, Set<String>> index, Collection<String> keys) {
+        Set<String> result = new HashSet<>();
+        for (String key : keys) {
+            Set<String> ids = index.get(key);
+            if (ids != null) {
+                result.addAll(ids);
+            }
+        }
+        return result;
+    }
+
+    private static <D> Match<D> exactMatch(Entry<D> entry, String query, List<String> queryTokens) {
+        int score = score(entry, query, queryTokens);
+        return score == 0 ? null : new Match<>(entry, score, 1.0);
+    }
+
+    // Average over the query words of the best similarity to any word of the document
+    private static <D> Match<D> typoMatch(Entry<D> entry, List<Set<String>> tokenGrams, double minSimilarity) {
+        double total = 0;
+        for (Set<String> token : tokenGrams) {
+            double best = 0;
+            for (Set<String> word : entry.wordGrams()) {
+                best = Math.max(best, SearchText.similarity(token, word));
+            }
+            total += best;
+        }
+        double similarity = total / tokenGrams.size();
+        return similarity >= minSimilarity ? new Match<>(entry, 0, similarity) : null;
+    }
+
+    /**
+     * Typeahead: documents having a word that starts with the last word of {@code prefix}
+     * and containing the preceding words. Without preceding words it walks the sorted word
+     * map and stops as soon as {@code limit} documents are found. With them, the documents
+     * containing all preceding words are looked up first; when there are few of them they
+     * are checked directly, otherwise the walk only counts those and gives up after
+     * {@code MAX_SCANNED} postings, so the cost never grows with the prefix range.
+     */
+    List<D> complete(String prefix, int limit) {
+        String query = SearchText.normalize(prefix);
+        if (query == null || limit <= 0) {
+            return List.of();
+        }
+        String[] queryWords = query.split(" ");
+        String last = queryWords[queryWords.length - 1];
+        List<String> preceding = Arrays.asList(queryWords).subList(0, queryWords.length - 1);
+
+        Set<String> candidates = preceding.isEmpty() ? null : containingAll(words, preceding);
+        if (candidates != null && candidates.size() <= MAX_SCANNED) {
+            return completeFrom(candidates, last, limit);
+        }
+
+        Map<String, D> found = new LinkedHashMap<>();
+        int scanned = 0;
+        for (Set<String> ids : words.subMap(last, true, last + Character.MAX_VALUE, true).values()) {
+            for (String id : ids) {
+                if (found.size() >= limit || scanned++ >= MAX_SCANNED) {
+                    return List.copyOf(found.values());
+                }
+                if (candidates != null && !candidates.contains(id)) {
+                    continue;
+                }
+                Entry<D> entry = entries.get(id);
+                if (entry != null) {
+                    found.putIfAbsent(id, entry.document());
+                }
+            }
+        }
+        return List.copyOf(found.values());
+    }
+
+    // Ids posted under every one of the keys, smallest posting list first
+    private static Set<String> containingAll(Map<String, Set<String>> index, Collection<String> keys) {
+        List<Set<String>> lists = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            Set<String> ids = index.get(key);
+            if (ids == null) {
+                return Set.of();
+            }
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+
+        Set<String> result = new HashSet<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.retainAll(lists.get(i));
+        }
+        return result;
+    }
+
+    // Same order as the word map walk: by the first matching word, then by sort key
+    private List<D> completeFrom(Set<String> candidates, String last, int limit) {
+        record Completion<T>(String word, Entry<T> entry) {}
+
+        List<Completion<D>> completions = new ArrayList<>();
+        for (String id : candidates) {
+            Entry<D> entry = entries.get(id);
+            if (entry == null) {
+                continue;
+            }
+            entry.words().stream()
+                    .filter(word -> word.startsWith(last))
+                    .min(Comparator.naturalOrder())
+                    .ifPresent(word -> completions.add(new Completion<>(word, entry)));
+        }
+        return completions.stream()
+                .sorted(Comparator.comparing((Completion<D> completion) -> completion.word())
+                        .thenComparing(completion -> completion.entry().sortKey()))
+                .limit(limit)
+                .map(completion -> completion.entry().document())
+                .toList();
+    }
+
+    private static int score(Entry<?> entry, String query, List<String> queryTokens) {
+        List<String> fields = entry.fields();
+        int best = 0;
+        for (int i = 0; i < fields.size(); i++) {
+            int weight = fields.size() - i;
+            best = Math.max(best, tier(fields.get(i), query, queryTokens) * weight);
+        }
+        return best;
+    }
+
+    private static int tier(String field, String query, List<String> queryTokens) {
+        if (field.isEmpty()) {
+            return 0;
+        }
+        if (field.equals(query)) {
+            return 5;
+        }
+        if (field.startsWith(query)) {
+            return 4;
+        }
+        if (field.contains(" " + query)) {
+            return 3;
+        }
+        if (field.contains(query)) {
+            return 2;
+        }
+        for (String token : queryTokens) {
+            if (!field.contains(token)) {
+                return 0;
+            }
+        }
+        return 1;
+    }
+}
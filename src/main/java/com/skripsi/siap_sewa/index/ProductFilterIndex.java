@@ -0,0 +1,274 @@
+package com.skripsi.siap_sewa.index;
+
+import com.skripsi.siap_sewa.dto.product.ProductFilterRequest;
+import com.skripsi.siap_sewa.repository.ProductRepository;
+import com.skripsi.siap_sewa.repository.ShopRepository;
+import com.skripsi.siap_sewa.repository.projection.ProductFilterView;
+import com.skripsi.siap_sewa.repository.projection.ShopLocationView;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bitmap index over the categorical product filters (category, shop province, rent
+ * category, isRnb). Every product gets a dense ordinal and each filter value a bitmap of
+ * ordinals, so a filter combination is an OR within each filter and an AND across
+ * filters. The database then only has to fetch the matching ids.
+ * Built on startup and kept current by the product and shop write paths; a change made
+ * inside a transaction is applied once that transaction commits, so a rollback leaves the
+ * index untouched.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductFilterIndex {
+
+    private final ProductRepository productRepository;
+    private final ShopRepository shopRepository;
+
+    // Above this many matches an id list costs more than letting Postgres evaluate the filters
+    @Value("${pintu.sewa.filter-index.max-candidates:2000}")
+    private int maxCandidates;
+
+    private record Attributes(String category, int rentCategory, boolean isRnb, String shopId) {}
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Everything below is guarded by lock
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final List<String> ids = new ArrayList<>();
+    private final List<Attributes> attributes = new ArrayList<>();
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+
+    private final Map<String, BitSet> byCategory = new HashMap<>();
+    private final Map<String, BitSet> byProvince = new HashMap<>();
+    private final Map<Integer, BitSet> byRentCategory = new HashMap<>();
+    private final Map<Boolean, BitSet> byIsRnb = new HashMap<>();
+    private final Map<String, BitSet> byShop = new HashMap<>();
+    private final Map<String, String> shopProvinces = new HashMap<>();
+
+    private volatile boolean ready;
+
+    /**
+     * Reloads the index from the database. The write lock is held across the reads, so a
+     * change committed meanwhile is applied after the reload instead of being overwritten.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            List<ShopLocationView> shops = shopRepository.findAllShopLocations();
+            List<ProductFilterView> products = productRepository.findAllProductFilterViews();
+
+            ordinals.clear();
+            ids.clear();
+            attributes.clear();
+            freeOrdinals.clear();
+            byCategory.clear();
+            byProvince.clear();
+            byRentCategory.clear();
+            byIsRnb.clear();
+            byShop.clear();
+            shopProvinces.clear();
+
+            for (ShopLocationView shop : shops) {
+                String province = ProductLocalityIndex.normalize(shop.getProvince());
+                if (province != null) {
+                    shopProvinces.put(shop.getShopId(), province);
+                }
+            }
+            for (ProductFilterView product : products) {
+                add(product.getId(), new Attributes(
+                        product.getCategory(),
+                        product.getRentCategory() == null ? 0 : product.getRentCategory(),
+                        Boolean.TRUE.equals(product.getIsRnb()),
+                        product.getShopId()));
+            }
+            ready = true;
+            log.info("Built product filter index: {} products, {} categories, {} provinces",
+                    ordinals.size(), byCategory.size(), byProvince.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the products matching the category, province, rent duration and isRnb filters
+     * of {@code filterRequest}. Empty when none of those filters is set, when the index is
+     * not built yet, or when there are more than {@code max-candidates} matches; the caller
+     * then filters in SQL instead.
+     */
+    public Optional<List<String>> match(ProductFilterRequest filterRequest) {
+        if (!ready) {
+            return Optional.empty();
+        }
+
+        lock.readLock().lock();
+        try {
+            BitSet result = null;
+            result = intersect(result, byCategory, filterRequest.getCategories());
+            result = intersect(result, byProvince, CollectionUtils.isEmpty(filterRequest.getProvinces())
+                    ? null
+                    : filterRequest.getProvinces().stream().map(ProductLocalityIndex::normalize).toList());
+            result = intersect(result, byRentCategory, filterRequest.getRentDurations());
+            result = intersect(result, byIsRnb, filterRequest.getIsRnbOptions());
+
+            if (result == null || result.cardinality() > maxCandidates) {
+                return Optional.empty();
+            }
+            List<String> matches = new ArrayList<>(result.cardinality());
+            for (int ordinal = result.nextSetBit(0); ordinal >= 0; ordinal = result.nextSetBit(ordinal + 1)) {
+                matches.add(ids.get(ordinal));
+            }
+            return Optional.of(matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void putProduct(String id, String category, int rentCategory, boolean isRnb, String shopId) {
+        AfterCommit.run(() -> applyPutProduct(id, category, rentCategory, isRnb, shopId));
+    }
+
+    public void removeProduct(String id) {
+        AfterCommit.run(() -> applyRemoveProduct(id));
+    }
+
+    public void updateShop(String shopId, String province) {
+        AfterCommit.run(() -> applyUpdateShop(shopId, province));
+    }
+
+    private void applyPutProduct(String id, String category, int rentCategory, boolean isRnb, String shopId) {
+        lock.writeLock().lock();
+        try {
+            remove(id);
+            add(id, new Attributes(category, rentCategory, isRnb, shopId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void applyRemoveProduct(String id) {
+        lock.writeLock().lock();
+        try {
+            remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void applyUpdateShop(String shopId, String province) {
+        String updated = ProductLocalityIndex.normalize(province);
+
+        lock.writeLock().lock();
+        try {
+            String previous = updated == null ? shopProvinces.remove(shopId) : shopProvinces.put(shopId, updated);
+            if (Objects.equals(previous, updated)) {
+                return;
+            }
+            BitSet products = byShop.get(shopId);
+            if (products == null) {
+                return;
+            }
+            if (previous != null) {
+                BitSet bitmap = byProvince.get(previous);
+                if (bitmap != null) {
+                    bitmap.andNot(products);
+                    if (bitmap.isEmpty()) {
+                        byProvince.remove(previous);
+                    }
+                }
+            }
+            if (updated != null) {
+                byProvince.computeIfAbsent(updated, key -> new BitSet()).or(products);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static <K> BitSet intersect(BitSet result, Map<K, BitSet> dimension, Collection<K> values) {
+        if (CollectionUtils.isEmpty(values)) {
+            return result;
+        }
+        BitSet union = new BitSet();
+        for (K value : values) {
+            BitSet bitmap = dimension.get(value);
+            if (bitmap != null) {
+                union.or(bitmap);
+            }
+        }
+        if (result != null) {
+            union.and(result);
+        }
+        return union;
+    }
+
+    private void add(String id, Attributes product) {
+        int ordinal;
+        if (freeOrdinals.isEmpty()) {
+            ordinal = ids.size();
+            ids.add(id);
+            attributes.add(product);
+        } else {
+            ordinal = freeOrdinals.pop();
+            ids.set(ordinal, id);
+            attributes.set(ordinal, product);
+        }
+        ordinals.put(id, ordinal);
+
+        set(byCategory, product.category(), ordinal);
+        set(byRentCategory, product.rentCategory(), ordinal);
+        set(byIsRnb, product.isRnb(), ordinal);
+        if (product.shopId() != null) {
+            set(byShop, product.shopId(), ordinal);
+            set(byProvince, shopProvinces.get(product.shopId()), ordinal);
+        }
+    }
+
+    private void remove(String id) {
+        Integer ordinal = ordinals.remove(id);
+        if (ordinal == null) {
+            return;
+        }
+        Attributes product = attributes.get(ordinal);
+        clear(byCategory, product.category(), ordinal);
+        clear(byRentCategory, product.rentCategory(), ordinal);
+        clear(byIsRnb, product.isRnb(), ordinal);
+        if (product.shopId() != null) {
+            clear(byShop, product.shopId(), ordinal);
+            clear(byProvince, shopProvinces.get(product.shopId()), ordinal);
+        }
+
+        ids.set(ordinal, null);
+        attributes.set(ordinal, null);
+        freeOrdinals.push(ordinal);
+    }
+
+    private static <K> void set(Map<K, BitSet> dimension, K value, int ordinal) {
+        if (value != null) {
+            dimension.computeIfAbsent(value, key -> new BitSet()).set(ordinal);
+        }
+    }
+
+    private static <K> void clear(Map<K, BitSet> dimension, K value, int ordinal) {
+        if (value == null) {
+            return;
+        }
+        BitSet bitmap = dimension.get(value);
+        if (bitmap != null) {
+            bitmap.clear(ordinal);
+            if (bitmap.isEmpty()) {
+                dimension.remove(value);
+            }
+        }
+    }
+}
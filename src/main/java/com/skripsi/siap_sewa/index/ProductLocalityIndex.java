@@ -0,0 +1,212 @@
+package com.skripsi.siap_sewa.index;
+
+import com.skripsi.siap_sewa.repository.ProductRepository;
+import com.skripsi.siap_sewa.repository.ShopRepository;
+import com.skripsi.siap_sewa.repository.projection.ProductShopView;
+import com.skripsi.siap_sewa.repository.projection.ShopLocationView;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index from normalized regency / province to the ids of the
+ * products sold by shops located there. Reads are lock-free on copy-on-write
+ * arrays; writes are rare (shop and product changes) and serialized. A change made
+ * inside a transaction is applied once that transaction commits.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductLocalityIndex {
+
+    private static final String[] EMPTY = new String[0];
+
+    private final ProductRepository productRepository;
+    private final ShopRepository shopRepository;
+
+    private final Map<String, String[]> productsByRegency = new ConcurrentHashMap<>();
+    private final Map<String, String[]> productsByProvince = new ConcurrentHashMap<>();
+
+    // Write-side bookkeeping, only touched under the instance lock
+    private final Map<String, ShopLocation> shopLocations = new HashMap<>();
+    private final Map<String, Set<String>> shopProducts = new HashMap<>();
+    private final Map<String, String> productShops = new HashMap<>();
+
+    private record ShopLocation(String regency, String province) {}
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        productsByRegency.clear();
+        productsByProvince.clear();
+        shopLocations.clear();
+        shopProducts.clear();
+        productShops.clear();
+
+        for (ShopLocationView shop : shopRepository.findAllShopLocations()) {
+            shopLocations.put(shop.getShopId(), new ShopLocation(normalize(shop.getRegency()), normalize(shop.getProvince())));
+        }
+
+        Map<String, List<String>> regencyIds = new HashMap<>();
+        Map<String, List<String>> provinceIds = new HashMap<>();
+        for (ProductShopView product : productRepository.findAllProductShops()) {
+            productShops.put(product.getProductId(), product.getShopId());
+            shopProducts.computeIfAbsent(product.getShopId(), id -> new HashSet<>()).add(product.getProductId());
+
+            ShopLocation location = shopLocations.get(product.getShopId());
+            if (location == null) {
+                continue;
+            }
+            if (location.regency() != null) {
+                regencyIds.computeIfAbsent(location.regency(), key -> new ArrayList<>()).add(product.getProductId());
+            }
+            if (location.province() != null) {
+                provinceIds.computeIfAbsent(location.province(), key -> new ArrayList<>()).add(product.getProductId());
+            }
+        }
+
+        regencyIds.forEach((key, ids) -> productsByRegency.put(key, ids.toArray(EMPTY)));
+        provinceIds.forEach((key, ids) -> productsByProvince.put(key, ids.toArray(EMPTY)));
+        log.info("Built product locality index: {} products, {} regencies, {} provinces",
+                productShops.size(), productsByRegency.size(), productsByProvince.size());
+    }
+
+    /**
+     * Returns up to {@code limit} product ids in the given regency, topped up
+     * with products from the same province when the regency has too few.
+     */
+    public List<String> findNear(String regency, String province, int limit) {
+        LinkedHashSet<String> result = new LinkedHashSet<>();
+        collect(lookup(productsByRegency, regency), result, limit);
+        if (result.size() < limit) {
+            collect(lookup(productsByProvince, province), result, limit);
+        }
+        return new ArrayList<>(result);
+    }
+
+    private static String[] lookup(Map<String, String[]> index, String value) {
+        String key = normalize(value);
+        return key == null ? null : index.get(key);
+    }
+
+    public void updateShop(String shopId, String regency, String province) {
+        AfterCommit.run(() -> applyUpdateShop(shopId, regency, province));
+    }
+
+    public void putProduct(String productId, String shopId) {
+        AfterCommit.run(() -> applyPutProduct(productId, shopId));
+    }
+
+    public void removeProduct(String productId) {
+        AfterCommit.run(() -> applyRemoveProduct(productId));
+    }
+
+    private synchronized void applyUpdateShop(String shopId, String regency, String province) {
+        ShopLocation updated = new ShopLocation(normalize(regency), normalize(province));
+        ShopLocation previous = shopLocations.put(shopId, updated);
+        if (updated.equals(previous)) {
+            return;
+        }
+
+        Set<String> productIds = shopProducts.getOrDefault(shopId, Set.of());
+        if (productIds.isEmpty()) {
+            return;
+        }
+        if (previous != null) {
+            removeAll(productsByRegency, previous.regency(), productIds);
+            removeAll(productsByProvince, previous.province(), productIds);
+        }
+        appendAll(productsByRegency, updated.regency(), productIds);
+        appendAll(productsByProvince, updated.province(), productIds);
+    }
+
+    private synchronized void applyPutProduct(String productId, String shopId) {
+        String previousShopId = productShops.get(productId);
+        if (shopId.equals(previousShopId)) {
+            return;
+        }
+        if (previousShopId != null) {
+            applyRemoveProduct(productId);
+        }
+
+        productShops.put(productId, shopId);
+        shopProducts.computeIfAbsent(shopId, id -> new HashSet<>()).add(productId);
+
+        ShopLocation location = shopLocations.get(shopId);
+        if (location != null) {
+            appendAll(productsByRegency, location.regency(), List.of(productId));
+            appendAll(productsByProvince, location.province(), List.of(productId));
+        }
+    }
+
+    private synchronized void applyRemoveProduct(String productId) {
+        String shopId = productShops.remove(productId);
+        if (shopId == null) {
+            return;
+        }
+        Set<String> products = shopProducts.get(shopId);
+        if (products != null) {
+            products.remove(productId);
+        }
+
+        ShopLocation location = shopLocations.get(shopId);
+        if (location != null) {
+            removeAll(productsByRegency, location.regency(), Set.of(productId));
+            removeAll(productsByProvince, location.province(), Set.of(productId));
+        }
+    }
+
+    private static void collect(String[] ids, Set<String> result, int limit) {
+        if (ids == null) {
+            return;
+        }
+        for (String id : ids) {
+            if (result.size() >= limit) {
+                return;
+            }
+            result.add(id);
+        }
+    }
+
+    private static void appendAll(Map<String, String[]> index, String key, Collection<String> ids) {
+        if (key == null) {
+            return;
+        }
+        index.compute(key, (k, current) -> {
+            String[] base = current == null ? EMPTY : current;
+            String[] merged = Arrays.copyOf(base, base.length + ids.size());
+            int i = base.length;
+            for (String id : ids) {
+                merged[i++] = id;
+            }
+            return merged;
+        });
+    }
+
+    private static void removeAll(Map<String, String[]> index, String key, Set<String> ids) {
+        if (key == null) {
+            return;
+        }
+        index.computeIfPresent(key, (k, current) -> {
+            String[] remaining = Arrays.stream(current)
+                    .filter(id -> !ids.contains(id))
+                    .toArray(String[]::new);
+            return remaining.length == 0 ? null : remaining;
+        });
+    }
+
+    /**
+     * Location key used by the indexes: trimmed, inner whitespace collapsed, lower case.
+     * {@code ProductSpecification} applies the same steps in SQL for the fallback path.
+     */
+    public static String normalize(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return value.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
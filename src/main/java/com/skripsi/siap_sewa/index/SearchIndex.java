@@ -0,0 +1,114 @@
+package com.skripsi.siap_sewa.index;
+
+import com.skripsi.siap_sewa.repository.ProductRepository;
+import com.skripsi.siap_sewa.repository.ShopRepository;
+import com.skripsi.siap_sewa.repository.projection.ProductSearchView;
+import com.skripsi.siap_sewa.repository.projection.ShopSearchView;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory search over product name/category and shop name, replacing the
+ * LIKE '%keyword%' scans. Built on startup and kept current by the product and
+ * shop write paths; a change made inside a transaction is applied once that transaction
+ * commits, so a rollback never shows or hides a product. Misspelled keywords fall back to trigram similarity within
+ * the same lookup, above {@code pintu.sewa.search.similarity-threshold}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SearchIndex {
+
+    public record ProductDocument(String id, String name, String category, String image) {}
+
+    public record ShopDocument(String id, String name, String image) {}
+
+    private final ProductRepository productRepository;
+    private final ShopRepository shopRepository;
+
+    @Value("${pintu.sewa.search.similarity-threshold:0.3}")
+    private double similarityThreshold;
+
+    private final InvertedIndex<ProductDocument> products = new InvertedIndex<>();
+    private final InvertedIndex<ShopDocument> shops = new InvertedIndex<>();
+
+    // Bumped on every change, so cached search results can tell they are outdated
+    private final AtomicLong version = new AtomicLong();
+
+    public long version() {
+        return version.get();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        products.clear();
+        for (ProductSearchView product : productRepository.findAllProductSearchViews()) {
+            applyPutProduct(product.getId(), product.getName(), product.getCategory(), product.getImage());
+        }
+
+        shops.clear();
+        for (ShopSearchView shop : shopRepository.findAllShopSearchViews()) {
+            applyPutShop(shop.getId(), shop.getName(), shop.getImage());
+        }
+        version.incrementAndGet();
+        log.info("Built search index: {} products, {} shops", products.size(), shops.size());
+    }
+
+    public List<ProductDocument> searchProducts(String keyword, int limit) {
+        return products.search(keyword, limit, similarityThreshold);
+    }
+
+    public List<ShopDocument> searchShops(String keyword, int limit) {
+        return shops.search(keyword, limit, similarityThreshold);
+    }
+
+    public List<ProductDocument> completeProducts(String prefix, int limit) {
+        return products.complete(prefix, limit);
+    }
+
+    public List<ShopDocument> completeShops(String prefix, int limit) {
+        return shops.complete(prefix, limit);
+    }
+
+    public void putProduct(String id, String name, String category, String image) {
+        AfterCommit.run(() -> applyPutProduct(id, name, category, image));
+    }
+
+    public void removeProduct(String id) {
+        AfterCommit.run(() -> applyRemoveProduct(id));
+    }
+
+    public void putShop(String id, String name, String image) {
+        AfterCommit.run(() -> applyPutShop(id, name, image));
+    }
+
+    private void applyPutProduct(String id, String name, String category, String image) {
+        products.put(id, new ProductDocument(id, name, category, mainImage(image)), name, category);
+        version.incrementAndGet();
+    }
+
+    private void applyRemoveProduct(String id) {
+        products.remove(id);
+        version.incrementAndGet();
+    }
+
+    private void applyPutShop(String id, String name, String image) {
+        shops.put(id, new ShopDocument(id, name, image), name);
+        version.incrementAndGet();
+    }
+
+    // Product images are stored as a ';'-joined list; only the first one is shown in search
+    private static String mainImage(String image) {
+        if (image == null || image.isBlank()) {
+            return null;
+        }
+        return image.split(";")[0].trim();
+    }
+}
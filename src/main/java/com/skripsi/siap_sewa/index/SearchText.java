@@ -0,0 +1,95 @@
+package com.skripsi.siap_sewa.index;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Normalization and tokenization shared by the search indexes. Text is lower-cased,
+ * everything but letters and digits becomes a word break (so reduplications like
+ * "buku-buku" collapse to one token) and common Indonesian particles and the
+ * possessive "-nya" are stripped from the end of each word.
+ */
+public final class SearchText {
+
+    public static final int GRAM_SIZE = 3;
+
+    private static final String[] SUFFIXES = {"nya", "lah", "kah", "pun"};
+    private static final int MIN_STEM_LENGTH = 3;
+
+    private SearchText() {
+    }
+
+    public static String normalize(String text) {
+        if (text == null) {
+            return null;
+        }
+        String normalized = text.toLowerCase(Locale.ROOT)
+                .replaceAll("[^\\p{L}\\p{N}]+", " ")
+                .trim();
+        return normalized.isEmpty() ? null : normalized;
+    }
+
+    /**
+     * Distinct stemmed words of already normalized text, in order of appearance.
+     */
+    public static List<String> tokens(String normalized) {
+        if (normalized == null) {
+            return List.of();
+        }
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String word : normalized.split(" ")) {
+            tokens.add(stem(word));
+        }
+        return new ArrayList<>(tokens);
+    }
+
+    static String stem(String word) {
+        for (String suffix : SUFFIXES) {
+            if (word.endsWith(suffix) && word.length() - suffix.length() >= MIN_STEM_LENGTH) {
+                return word.substring(0, word.length() - suffix.length());
+            }
+        }
+        return word;
+    }
+
+    /**
+     * Trigram similarity of two words in the style of pg_trgm: words are padded with two
+     * leading and one trailing blank, and the result is shared / (total - shared) trigrams.
+     */
+    static double similarity(String a, String b) {
+        return similarity(paddedGrams(a), paddedGrams(b));
+    }
+
+    /**
+     * {@link #similarity(String, String)} on trigram sets from {@link #paddedGrams},
+     * for callers that keep them; allocates nothing.
+     */
+    static double similarity(Set<String> left, Set<String> right) {
+        Set<String> smaller = left.size() <= right.size() ? left : right;
+        Set<String> larger = smaller == left ? right : left;
+        int shared = 0;
+        for (String gram : smaller) {
+            if (larger.contains(gram)) {
+                shared++;
+            }
+        }
+        int total = left.size() + right.size();
+        return total == shared ? 0 : (double) shared / (total - shared);
+    }
+
+    static Set<String> paddedGrams(String word) {
+        Set<String> grams = new HashSet<>();
+        addGrams("  " + word + " ", grams);
+        return grams;
+    }
+
+    static void addGrams(String token, Set<String> grams) {
+        for (int i = 0; i + GRAM_SIZE <= token.length(); i++) {
+            grams.add(token.substring(i, i + GRAM_SIZE));
+        }
+    }
+}
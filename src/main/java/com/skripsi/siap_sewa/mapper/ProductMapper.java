@@ -5,7 +5,9 @@ import com.skripsi.siap_sewa.dto.product.ProductDetailResponse;
 import com.skripsi.siap_sewa.dto.product.ProductListResponse;
 import com.skripsi.siap_sewa.dto.product.ProductResponse;
 import com.skripsi.siap_sewa.entity.ProductEntity;
+import com.skripsi.siap_sewa.entity.ProductStatsEntity;
 import com.skripsi.siap_sewa.helper.ProductHelper;
+import com.skripsi.siap_sewa.repository.projection.ProductCardView;
 import com.skripsi.siap_sewa.utils.CommonUtils;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
@@ -16,10 +18,10 @@ import java.util.List;
 @Component
 public class ProductMapper {
 
-    public ProductResponse toProductResponse(ProductEntity product) {
+    public ProductResponse toProductResponse(ProductEntity product, ProductStatsEntity stats) {
         if (product == null) return null;
 
-        Double productRating = ProductHelper.calculateWeightedRating(product.getReviews());
+        Double productRating = ProductHelper.calculateWeightedRating(stats);
         String address = (product.getShop() != null && product.getShop().getRegency() != null)
                 ? product.getShop().getRegency()
                 : "Kabupaten Tidak Diketahui";
@@ -32,17 +34,34 @@ public class ProductMapper {
                 .image(product.getImage())
                 .address(address)
                 .rating(productRating)
-                .rentedTimes(ProductHelper.countRentedTimes(product.getTransactions()))
+                .rentedTimes(stats != null ? stats.getRentedCount() : 0)
                 .price(ProductHelper.getLowestPrice(product))
                 .build();
     }
 
-    public ProductDetailResponse toProductDetailResponse(ProductEntity product) {
+    public ProductResponse toProductResponse(ProductCardView card) {
+        if (card == null) return null;
+
+        String address = card.regency() != null ? card.regency() : "Kabupaten Tidak Diketahui";
+
+        return ProductResponse.builder()
+                .id(card.id())
+                .name(card.name())
+                .rentCategory(CommonUtils.getRentDurationName(card.rentCategory()))
+                .isRnb(card.isRnb())
+                .image(card.image())
+                .address(address)
+                .rating(ProductHelper.calculateWeightedRating(card.reviewCount(), card.ratingSum()))
+                .rentedTimes(card.rentedCount() != null ? card.rentedCount() : 0)
+                .price(ProductHelper.getLowestPrice(card))
+                .build();
+    }
+
+    public ProductDetailResponse toProductDetailResponse(ProductEntity product, ProductStatsEntity stats) {
         if (product == null) return null;
 
         List<String> images = processImageString(product.getImage());
-        int[] transactionCounts = ProductHelper.countProductTransactions(product.getTransactions());
-        Double rating = ProductHelper.calculateWeightedRating(product.getReviews());
+        Double rating = ProductHelper.calculateWeightedRating(stats);
 
         return new ProductDetailResponse(
                 product.getId(),
@@ -64,17 +83,16 @@ public class ProductMapper {
                 product.getStatus(),
                 images,
                 rating,
-                transactionCounts[0], 
-                transactionCounts[1]  
+                stats != null ? stats.getRentedCount() : 0,
+                stats != null ? stats.getBoughtCount() : 0
         );
     }
 
-    public ProductListResponse toProductListResponse(ProductEntity product) {
+    public ProductListResponse toProductListResponse(ProductEntity product, ProductStatsEntity stats) {
         if (product == null) return null;
 
         List<String> images = processImageString(product.getImage());
-        Double rating = ProductHelper.calculateWeightedRating(product.getReviews());
-        int[] transactionCounts = ProductHelper.countProductTransactions(product.getTransactions());
+        Double rating = ProductHelper.calculateWeightedRating(stats);
         String mainImage = images.isEmpty() ? null : images.get(0);
 
         return ProductListResponse.builder()
@@ -89,7 +107,29 @@ public class ProductMapper {
                 .status(product.getStatus())
                 .mainImage(mainImage)
                 .rating(rating)
-                .rentedTimes(transactionCounts[0])
+                .rentedTimes(stats != null ? stats.getRentedCount() : 0)
+                .build();
+    }
+
+    public ProductListResponse toProductListResponse(ProductCardView card) {
+        if (card == null) return null;
+
+        List<String> images = processImageString(card.image());
+        String mainImage = images.isEmpty() ? null : images.get(0);
+
+        return ProductListResponse.builder()
+                .id(card.id())
+                .name(card.name())
+                .category(card.category())
+                .isRnb(card.isRnb())
+                .dailyPrice(card.dailyPrice())
+                .weeklyPrice(card.weeklyPrice())
+                .monthlyPrice(card.monthlyPrice())
+                .stock(card.stock())
+                .status(card.status())
+                .mainImage(mainImage)
+                .rating(ProductHelper.calculateWeightedRating(card.reviewCount(), card.ratingSum()))
+                .rentedTimes(card.rentedCount() != null ? card.rentedCount() : 0)
                 .build();
     }
 
@@ -1,9 +1,17 @@
 package com.skripsi.siap_sewa.repository;
 
 import com.skripsi.siap_sewa.entity.CartEntity;
+import com.skripsi.siap_sewa.repository.projection.CartItemView;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,6 +19,27 @@ public interface CartRepository extends JpaRepository<CartEntity, String> {
 
     List<CartEntity> findByCustomerId(String customerId);
 
+    // Only items whose product and shop still exist, the same rows findCartItemViewsByCustomerId lists
+    @Query("SELECT c FROM CartEntity c JOIN c.product p JOIN p.shop s WHERE c.customerId = :customerId")
+    List<CartEntity> findLiveByCustomerId(@Param("customerId") String customerId);
+
+    @Query("SELECT COUNT(c) FROM CartEntity c JOIN c.product p JOIN p.shop s WHERE c.customerId = :customerId")
+    long countByCustomerId(@Param("customerId") String customerId);
+
+    @Query("""
+            SELECT new com.skripsi.siap_sewa.repository.projection.CartItemView(
+                c.id, c.quantity, c.startRentDate, c.endRentDate,
+                p.id, p.name, p.image, p.stock, p.deposit, p.minRented, p.rentCategory,
+                p.dailyPrice, p.weeklyPrice, p.monthlyPrice, p.lowestPrice,
+                s.id, s.name)
+            FROM CartEntity c
+            JOIN c.product p
+            JOIN p.shop s
+            WHERE c.customerId = :customerId
+            ORDER BY s.id, c.createdAt DESC
+            """)
+    List<CartItemView> findCartItemViewsByCustomerId(@Param("customerId") String customerId);
+
     Optional<CartEntity> findByCustomerIdAndProductIdAndStartRentDateAndEndRentDate(
             String customerId,
             String productId,
@@ -23,5 +52,37 @@ public interface CartRepository extends JpaRepository<CartEntity, String> {
             LocalDate startRentDate,
             LocalDate endRentDate
     );
-}
 
+    @Transactional
+    @Modifying
+    @Query(value = """
+    INSERT INTO cart (id, customer_id, product_id, quantity, total_amount, start_rent_date, end_rent_date,
+                      shipping_address, shipping_partner, created_at, last_update_at)
+    VALUES (:id, :customerId, :productId, :quantity, :totalAmount, :startRentDate, :endRentDate,
+            :shippingAddress, :shippingPartner, :createdAt, :lastUpdateAt)
+    ON CONFLICT (id) DO UPDATE SET
+        quantity = EXCLUDED.quantity,
+        total_amount = EXCLUDED.total_amount,
+        start_rent_date = EXCLUDED.start_rent_date,
+        end_rent_date = EXCLUDED.end_rent_date,
+        shipping_address = EXCLUDED.shipping_address,
+        shipping_partner = EXCLUDED.shipping_partner,
+        last_update_at = EXCLUDED.last_update_at
+""", nativeQuery = true)
+    int upsert(@Param("id") String id,
+               @Param("customerId") String customerId,
+               @Param("productId") String productId,
+               @Param("quantity") int quantity,
+               @Param("totalAmount") BigDecimal totalAmount,
+               @Param("startRentDate") LocalDate startRentDate,
+               @Param("endRentDate") LocalDate endRentDate,
+               @Param("shippingAddress") String shippingAddress,
+               @Param("shippingPartner") String shippingPartner,
+               @Param("createdAt") LocalDateTime createdAt,
+               @Param("lastUpdateAt") LocalDateTime lastUpdateAt);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM CartEntity c WHERE c.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<String> ids);
+}
@@ -0,0 +1,29 @@
+package com.skripsi.siap_sewa.repository;
+
+import com.skripsi.siap_sewa.entity.ProductEntity;
+import com.skripsi.siap_sewa.repository.projection.ProductCardView;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface ProductCardRepository {
+
+    /**
+     * A page of product cards matching {@code spec}, selected directly as the projection
+     * (no entities are loaded), plus the count query when the page does not tell the total.
+     */
+    Page<ProductCardView> findProductCards(Specification<ProductEntity> spec, Pageable pageable);
+
+    /**
+     * Up to {@code limit} product cards matching {@code spec}, in the order the specification
+     * applies, with no count query.
+     */
+    List<ProductCardView> findProductCards(Specification<ProductEntity> spec, int limit);
+
+    /**
+     * Cards of the given products in the order of {@code ids}; ids without a product are skipped.
+     */
+    List<ProductCardView> findProductCardsInOrder(List<String> ids);
+}
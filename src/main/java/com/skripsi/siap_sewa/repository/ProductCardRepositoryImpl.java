@@ -0,0 +1,109 @@
+package com.skripsi.siap_sewa.repository;
+
+import com.skripsi.siap_sewa.entity.ProductEntity;
+import com.skripsi.siap_sewa.entity.ProductStatsEntity;
+import com.skripsi.siap_sewa.entity.ShopEntity;
+import com.skripsi.siap_sewa.repository.projection.ProductCardView;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+class ProductCardRepositoryImpl implements ProductCardRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<ProductCardView> findProductCards(Specification<ProductEntity> spec, Pageable pageable) {
+        TypedQuery<ProductCardView> typedQuery = cardQuery(spec, pageable.getSort());
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        return PageableExecutionUtils.getPage(typedQuery.getResultList(), pageable, () -> count(spec));
+    }
+
+    @Override
+    public List<ProductCardView> findProductCards(Specification<ProductEntity> spec, int limit) {
+        return cardQuery(spec, Sort.unsorted())
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public List<ProductCardView> findProductCardsInOrder(List<String> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductCardView> query = criteriaBuilder.createQuery(ProductCardView.class);
+        Root<ProductEntity> root = selectCards(query, criteriaBuilder);
+        query.where(root.get("id").in(ids));
+
+        Map<String, ProductCardView> cards = entityManager.createQuery(query).getResultList().stream()
+                .collect(Collectors.toMap(ProductCardView::id, Function.identity()));
+        return ids.stream()
+                .map(cards::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private TypedQuery<ProductCardView> cardQuery(Specification<ProductEntity> spec, Sort sort) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductCardView> query = criteriaBuilder.createQuery(ProductCardView.class);
+        Root<ProductEntity> root = selectCards(query, criteriaBuilder);
+
+        Predicate predicate = spec.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        // A pageable sort replaces any ordering the specification applied, as with findAll(spec, pageable)
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, criteriaBuilder));
+        }
+        return entityManager.createQuery(query);
+    }
+
+    // Same columns as ProductRepository.PRODUCT_CARD_SELECT
+    private static Root<ProductEntity> selectCards(CriteriaQuery<ProductCardView> query, CriteriaBuilder criteriaBuilder) {
+        Root<ProductEntity> root = query.from(ProductEntity.class);
+        Join<ProductEntity, ShopEntity> shop = root.join("shop", JoinType.LEFT);
+        // Joined as "stats" so the stats filters and sorts of ProductSpecification reuse it
+        Join<ProductEntity, ProductStatsEntity> stats = root.join("stats", JoinType.LEFT);
+
+        query.select(criteriaBuilder.construct(ProductCardView.class,
+                root.get("id"), root.get("name"), root.get("category"), root.get("rentCategory"),
+                root.get("isRnb"), root.get("image"),
+                root.get("dailyPrice"), root.get("weeklyPrice"), root.get("monthlyPrice"), root.get("lowestPrice"),
+                root.get("stock"), root.get("status"),
+                shop.get("regency"), stats.get("reviewCount"), stats.get("ratingSum"), stats.get("rentedCount"),
+                stats.get("weightedRating")));
+        return root;
+    }
+
+    private long count(Specification<ProductEntity> spec) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+        Root<ProductEntity> root = query.from(ProductEntity.class);
+
+        Predicate predicate = spec.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.select(criteriaBuilder.count(root)).orderBy();
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
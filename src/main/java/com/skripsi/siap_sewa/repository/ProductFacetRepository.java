@@ -0,0 +1,16 @@
+package com.skripsi.siap_sewa.repository;
+
+import com.skripsi.siap_sewa.entity.ProductEntity;
+import com.skripsi.siap_sewa.repository.projection.ProductFacetRow;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface ProductFacetRepository {
+
+    /**
+     * Products matching {@code spec}, counted per (category, shop province, rent category, isRnb)
+     * in a single grouped query.
+     */
+    List<ProductFacetRow> countFacets(Specification<ProductEntity> spec);
+}
@@ -0,0 +1,53 @@
+package com.skripsi.siap_sewa.repository;
+
+import com.skripsi.siap_sewa.entity.ProductEntity;
+import com.skripsi.siap_sewa.entity.ShopEntity;
+import com.skripsi.siap_sewa.repository.projection.ProductFacetRow;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.*;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class ProductFacetRepositoryImpl implements ProductFacetRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ProductFacetRow> countFacets(Specification<ProductEntity> spec) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<ProductEntity> root = query.from(ProductEntity.class);
+        Join<ProductEntity, ShopEntity> shop = root.join("shop", JoinType.LEFT);
+
+        Path<String> category = root.get("category");
+        Path<String> province = shop.get("province");
+        Path<Integer> rentCategory = root.get("rentCategory");
+        Path<Boolean> isRnb = root.get("isRnb");
+        Expression<Long> count = criteriaBuilder.count(root);
+
+        Predicate predicate = spec.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.multiselect(category, province, rentCategory, isRnb, count)
+                .groupBy(category, province, rentCategory, isRnb)
+                .orderBy();
+
+        List<ProductFacetRow> rows = new ArrayList<>();
+        for (Tuple tuple : entityManager.createQuery(query).getResultList()) {
+            rows.add(new ProductFacetRow(
+                    tuple.get(category),
+                    tuple.get(province),
+                    tuple.get(rentCategory),
+                    tuple.get(isRnb),
+                    tuple.get(count)
+            ));
+        }
+        return rows;
+    }
+}
@@ -1,28 +1,87 @@
 package com.skripsi.siap_sewa.repository;
 
 import com.skripsi.siap_sewa.entity.ProductEntity;
+import com.skripsi.siap_sewa.repository.projection.ProductCardView;
+import com.skripsi.siap_sewa.repository.projection.ProductFilterView;
+import com.skripsi.siap_sewa.repository.projection.ProductSearchView;
+import com.skripsi.siap_sewa.repository.projection.ProductShopView;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ProductRepository extends JpaRepository<ProductEntity, String>, JpaSpecificationExecutor<ProductEntity> {
+public interface ProductRepository extends JpaRepository<ProductEntity, String>, JpaSpecificationExecutor<ProductEntity>,
+        ProductFacetRepository, ProductCardRepository {
     Page<ProductEntity> findAll(Pageable pageable);
 
     List<ProductEntity> findByShopId(String shopId);
 
-    @Query("SELECT p FROM ProductEntity p WHERE LOWER(p.name) LIKE LOWER(concat('%', :keyword, '%')) OR LOWER(p.category) LIKE LOWER(concat('%', :keyword, '%')) ORDER BY p.name ASC")
-    List<ProductEntity> searchProducts(@Param("keyword") String keyword);
+    @Query("SELECT p.id AS productId, p.shop.id AS shopId FROM ProductEntity p WHERE p.shop IS NOT NULL")
+    List<ProductShopView> findAllProductShops();
 
-    @Query("SELECT p FROM ProductEntity p WHERE LOWER(p.category) LIKE LOWER(concat('%', :category, '%')) ORDER BY p.name ASC")
-    List<ProductEntity> findSimilarProductsByCategory(@Param("category") String category);
+    @Query("SELECT p.id AS id, p.name AS name, p.category AS category, p.image AS image FROM ProductEntity p")
+    List<ProductSearchView> findAllProductSearchViews();
+
+    @Query("SELECT p.id AS id, p.category AS category, p.rentCategory AS rentCategory, p.isRnb AS isRnb, " +
+            "s.id AS shopId FROM ProductEntity p LEFT JOIN p.shop s")
+    List<ProductFilterView> findAllProductFilterViews();
+
+    String PRODUCT_CARD_SELECT = """
+            SELECT new com.skripsi.siap_sewa.repository.projection.ProductCardView(
+                p.id, p.name, p.category, p.rentCategory, p.isRnb, p.image,
+                p.dailyPrice, p.weeklyPrice, p.monthlyPrice, p.lowestPrice, p.stock, p.status,
+                s.regency, ps.reviewCount, ps.ratingSum, ps.rentedCount, ps.weightedRating)
+            FROM ProductEntity p
+            LEFT JOIN p.shop s
+            LEFT JOIN ProductStatsEntity ps ON ps.productId = p.id
+            """;
+
+    @Query(PRODUCT_CARD_SELECT + "WHERE s.id = :shopId ORDER BY p.name ASC")
+    List<ProductCardView> findProductCardsByShopId(@Param("shopId") String shopId, Pageable pageable);
+
+    @Query(PRODUCT_CARD_SELECT + "WHERE s.id = :shopId")
+    List<ProductCardView> findAllProductCardsByShopId(@Param("shopId") String shopId);
+
+    @Query("SELECT p FROM ProductEntity p JOIN FETCH p.shop WHERE p.id IN :ids")
+    List<ProductEntity> findAllWithShopByIdIn(@Param("ids") Collection<String> ids);
+
+    @Query("SELECT p.id FROM ProductEntity p JOIN p.shop s WHERE p.id IN :ids")
+    List<String> findIdsWithShopByIdIn(@Param("ids") Collection<String> ids);
+
+    @Query("SELECT p.stock FROM ProductEntity p WHERE p.id = :id")
+    Optional<Integer> findStockById(@Param("id") String id);
+
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE product SET stock = stock - :quantity WHERE id = :id AND stock >= :quantity", nativeQuery = true)
+    int takeStock(@Param("id") String id, @Param("quantity") int quantity);
+
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE product SET stock = stock + :quantity WHERE id = :id", nativeQuery = true)
+    int restoreStock(@Param("id") String id, @Param("quantity") int quantity);
+
+    // Planner row estimate for PRODUCT (from the last ANALYZE); -1 or 0 when never analyzed
+    @Query(value = "SELECT CAST(reltuples AS bigint) FROM pg_class WHERE oid = CAST('product' AS regclass)", nativeQuery = true)
+    long estimateRowCount();
+
+    // Reads only about percent of the table's pages, so the cost follows the sample size, not the catalog
+    @Query(value = """
+            SELECT id FROM product TABLESAMPLE SYSTEM (CAST(:percent AS real))
+            WHERE UPPER(status) = UPPER(:status)
+            LIMIT :limit""", nativeQuery = true)
+    List<String> findSampledIdsByStatus(@Param("status") String status,
+                                        @Param("percent") double percent,
+                                        @Param("limit") int limit);
 }
 
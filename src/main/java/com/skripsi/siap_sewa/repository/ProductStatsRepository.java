@@ -0,0 +1,63 @@
+package com.skripsi.siap_sewa.repository;
+
+import com.skripsi.siap_sewa.entity.ProductStatsEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface ProductStatsRepository extends JpaRepository<ProductStatsEntity, String> {
+
+    List<ProductStatsEntity> findAllByOrderByRentedCountDescProductIdAsc(Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+    INSERT INTO product_stats (product_id, review_count, rating_sum, weighted_rating, rented_count, bought_count,
+                               one_star_count, two_star_count, three_star_count, four_star_count, five_star_count,
+                               last_update_at)
+    VALUES (:productId, 1, :rating,
+            ROUND(CAST((:rating + :minimumVotes * :globalAverage) / (1 + :minimumVotes) AS numeric), 1),
+            0, 0,
+            CASE WHEN :star = 1 THEN 1 ELSE 0 END, CASE WHEN :star = 2 THEN 1 ELSE 0 END,
+            CASE WHEN :star = 3 THEN 1 ELSE 0 END, CASE WHEN :star = 4 THEN 1 ELSE 0 END,
+            CASE WHEN :star = 5 THEN 1 ELSE 0 END,
+            now())
+    ON CONFLICT (product_id) DO UPDATE SET
+        review_count = product_stats.review_count + 1,
+        rating_sum = product_stats.rating_sum + EXCLUDED.rating_sum,
+        weighted_rating = ROUND(CAST((product_stats.rating_sum + EXCLUDED.rating_sum + :minimumVotes * :globalAverage)
+                / (product_stats.review_count + 1 + :minimumVotes) AS numeric), 1),
+        one_star_count = product_stats.one_star_count + EXCLUDED.one_star_count,
+        two_star_count = product_stats.two_star_count + EXCLUDED.two_star_count,
+        three_star_count = product_stats.three_star_count + EXCLUDED.three_star_count,
+        four_star_count = product_stats.four_star_count + EXCLUDED.four_star_count,
+        five_star_count = product_stats.five_star_count + EXCLUDED.five_star_count,
+        last_update_at = now()
+""", nativeQuery = true)
+    int addReview(@Param("productId") String productId,
+                  @Param("rating") double rating,
+                  @Param("star") int star,
+                  @Param("minimumVotes") double minimumVotes,
+                  @Param("globalAverage") double globalAverage);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+    INSERT INTO product_stats (product_id, review_count, rating_sum, weighted_rating, rented_count, bought_count, last_update_at)
+    VALUES (:productId, 0, 0, 0, GREATEST(:rentedDelta, 0), GREATEST(:boughtDelta, 0), now())
+    ON CONFLICT (product_id) DO UPDATE SET
+        rented_count = GREATEST(product_stats.rented_count + :rentedDelta, 0),
+        bought_count = GREATEST(product_stats.bought_count + :boughtDelta, 0),
+        last_update_at = now()
+""", nativeQuery = true)
+    int addTransactions(@Param("productId") String productId,
+                        @Param("rentedDelta") int rentedDelta,
+                        @Param("boughtDelta") int boughtDelta);
+}
@@ -1,13 +1,19 @@
 package com.skripsi.siap_sewa.repository;
 
 import com.skripsi.siap_sewa.entity.ReviewEntity;
+import com.skripsi.siap_sewa.repository.projection.ReviewCommentView;
+import com.skripsi.siap_sewa.repository.projection.ReviewListView;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -27,39 +33,81 @@ public interface ReviewRepository extends JpaRepository<ReviewEntity, String> {
 //            @Param("reviewTopics") List<String> reviewTopics,
 //            Pageable pageable);
 
-    @Query("""
-    SELECT r FROM ReviewEntity r
-    WHERE r.product.id = :productId
-      AND (:hasMedia IS NULL OR r.image IS NOT NULL)
-      AND (:rating IS NULL OR r.rating BETWEEN :rating AND :rating + 0.9)
-      AND (
-           :reviewTopics IS NULL OR
-           (LOWER(r.comment) LIKE '%kondisi barang%' AND 'kondisi barang' IN :reviewTopics) OR 
-           (LOWER(r.comment) LIKE '%durasi pengiriman%' AND 'durasi pengiriman' IN :reviewTopics)
-      )
-    ORDER BY r.createdAt DESC
-""")
-    Page<ReviewEntity> findByProductIdWithFilters(
+    String REVIEW_LIST_SELECT = """
+            SELECT new com.skripsi.siap_sewa.repository.projection.ReviewListView(
+                r.id, r.comment, r.image, r.rating, r.createdAt, c.username, c.image, p.name, p.image)
+            FROM ReviewEntity r
+            LEFT JOIN r.customer c
+            JOIN r.product p
+            """;
+
+    String REVIEW_FILTERS = """
+              AND (:hasMedia IS NULL OR r.image IS NOT NULL)
+              AND (:rating IS NULL OR r.rating BETWEEN :rating AND :rating + 0.9)
+              AND (:topicMasks IS NULL OR r.topicMask IN :topicMasks)
+            """;
+
+    // Keyset page, newest first; backed by the (product_id | shop_id, created_at DESC, id DESC) indexes
+    String REVIEW_SEEK = """
+              AND (r.createdAt < :beforeCreatedAt OR (r.createdAt = :beforeCreatedAt AND r.id < :beforeId))
+            ORDER BY r.createdAt DESC, r.id DESC
+            """;
+
+    @Query(value = REVIEW_LIST_SELECT + "WHERE r.product.id = :productId\n" + REVIEW_FILTERS,
+            countQuery = "SELECT COUNT(r) FROM ReviewEntity r WHERE r.product.id = :productId\n" + REVIEW_FILTERS)
+    Page<ReviewListView> findByProductIdWithFilters(
             @Param("productId") String productId,
             @Param("hasMedia") Boolean hasMedia,
             @Param("rating") Integer rating,
-            @Param("reviewTopics") List<String> reviewTopics,
+            @Param("topicMasks") List<Integer> topicMasks,
             Pageable pageable);
 
-    @Query("SELECT r FROM ReviewEntity r WHERE " +
-            "r.product.shop.id = :shopId AND " +
-            "(:hasMedia IS NULL OR r.image IS NOT NULL) AND " +
-            "(:rating IS NULL OR r.rating BETWEEN :rating AND :rating + 0.9) AND " +
-            "(:reviewTopics IS NULL OR " +
-            "   (LOWER(r.comment) LIKE '%kondisi barang%' AND 'kondisi barang' IN :reviewTopics) OR " +
-            "   (LOWER(r.comment) LIKE '%durasi pengiriman%' AND 'durasi pengiriman' IN :reviewTopics))")
-    Page<ReviewEntity> findByProduct_Shop_IdWithFilters(
+    @Query(value = REVIEW_LIST_SELECT + "WHERE r.shopId = :shopId\n" + REVIEW_FILTERS,
+            countQuery = "SELECT COUNT(r) FROM ReviewEntity r WHERE r.shopId = :shopId\n" + REVIEW_FILTERS)
+    Page<ReviewListView> findByShopIdWithFilters(
             @Param("shopId") String shopId,
             @Param("hasMedia") Boolean hasMedia,
             @Param("rating") Integer rating,
-            @Param("reviewTopics") List<String> reviewTopics,
+            @Param("topicMasks") List<Integer> topicMasks,
             Pageable pageable);
 
-    @Query("SELECT r FROM ReviewEntity r WHERE " + "r.product.shop.id = :shopId")
-    List<ReviewEntity> findByProduct_Shop_Id(@Param("shopId") String shopId);
+    @Query(REVIEW_LIST_SELECT + "WHERE r.product.id = :productId\n" + REVIEW_FILTERS + REVIEW_SEEK)
+    List<ReviewListView> findByProductIdBefore(
+            @Param("productId") String productId,
+            @Param("hasMedia") Boolean hasMedia,
+            @Param("rating") Integer rating,
+            @Param("topicMasks") List<Integer> topicMasks,
+            @Param("beforeCreatedAt") LocalDateTime beforeCreatedAt,
+            @Param("beforeId") String beforeId,
+            Pageable limit);
+
+    @Query(REVIEW_LIST_SELECT + "WHERE r.shopId = :shopId\n" + REVIEW_FILTERS + REVIEW_SEEK)
+    List<ReviewListView> findByShopIdBefore(
+            @Param("shopId") String shopId,
+            @Param("hasMedia") Boolean hasMedia,
+            @Param("rating") Integer rating,
+            @Param("topicMasks") List<Integer> topicMasks,
+            @Param("beforeCreatedAt") LocalDateTime beforeCreatedAt,
+            @Param("beforeId") String beforeId,
+            Pageable limit);
+
+    @Query("SELECT r.id AS id, r.comment AS comment FROM ReviewEntity r " +
+            "WHERE r.topicMask IS NULL AND r.id > :afterId ORDER BY r.id")
+    List<ReviewCommentView> findUntaggedComments(@Param("afterId") String afterId, Pageable pageable);
+
+    @Query("SELECT r.id FROM ReviewEntity r WHERE r.imageStatus = :imageStatus AND r.createdAt < :createdBefore")
+    List<String> findIdsByImageStatusCreatedBefore(@Param("imageStatus") String imageStatus,
+                                                   @Param("createdBefore") LocalDateTime createdBefore);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ReviewEntity r SET r.image = :image, r.imageStatus = :imageStatus WHERE r.id IN :ids")
+    int updateImage(@Param("ids") Collection<String> ids,
+                    @Param("image") String image,
+                    @Param("imageStatus") String imageStatus);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ReviewEntity r SET r.topicMask = :topicMask WHERE r.id IN :ids")
+    int updateTopicMask(@Param("ids") Collection<String> ids, @Param("topicMask") int topicMask);
 }
@@ -0,0 +1,71 @@
+package com.skripsi.siap_sewa.repository;
+
+import com.skripsi.siap_sewa.entity.ShopRatingStatsEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+
+@Repository
+public interface ShopRatingStatsRepository extends JpaRepository<ShopRatingStatsEntity, String> {
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+    INSERT INTO shop_rating_stats (shop_id, review_count, rating_sum,
+                                   one_star_count, two_star_count, three_star_count, four_star_count, five_star_count,
+                                   last_update_at)
+    VALUES (:shopId, 1, :rating,
+            CASE WHEN :star = 1 THEN 1 ELSE 0 END, CASE WHEN :star = 2 THEN 1 ELSE 0 END,
+            CASE WHEN :star = 3 THEN 1 ELSE 0 END, CASE WHEN :star = 4 THEN 1 ELSE 0 END,
+            CASE WHEN :star = 5 THEN 1 ELSE 0 END,
+            now())
+    ON CONFLICT (shop_id) DO UPDATE SET
+        review_count = shop_rating_stats.review_count + 1,
+        rating_sum = shop_rating_stats.rating_sum + EXCLUDED.rating_sum,
+        one_star_count = shop_rating_stats.one_star_count + EXCLUDED.one_star_count,
+        two_star_count = shop_rating_stats.two_star_count + EXCLUDED.two_star_count,
+        three_star_count = shop_rating_stats.three_star_count + EXCLUDED.three_star_count,
+        four_star_count = shop_rating_stats.four_star_count + EXCLUDED.four_star_count,
+        five_star_count = shop_rating_stats.five_star_count + EXCLUDED.five_star_count,
+        last_update_at = now()
+""", nativeQuery = true)
+    int addReview(@Param("shopId") String shopId,
+                  @Param("rating") double rating,
+                  @Param("star") int star);
+
+    // Takes the review totals of the given products (still present in PRODUCT_STATS) out of their shops
+    @Transactional
+    @Modifying
+    @Query(value = """
+    UPDATE shop_rating_stats s SET
+        review_count = GREATEST(s.review_count - d.review_count, 0),
+        rating_sum = GREATEST(s.rating_sum - d.rating_sum, 0),
+        one_star_count = GREATEST(s.one_star_count - d.one_star_count, 0),
+        two_star_count = GREATEST(s.two_star_count - d.two_star_count, 0),
+        three_star_count = GREATEST(s.three_star_count - d.three_star_count, 0),
+        four_star_count = GREATEST(s.four_star_count - d.four_star_count, 0),
+        five_star_count = GREATEST(s.five_star_count - d.five_star_count, 0),
+        last_update_at = now()
+    FROM (
+        SELECT p.shop_id,
+               SUM(ps.review_count) AS review_count,
+               SUM(ps.rating_sum) AS rating_sum,
+               SUM(ps.one_star_count) AS one_star_count,
+               SUM(ps.two_star_count) AS two_star_count,
+               SUM(ps.three_star_count) AS three_star_count,
+               SUM(ps.four_star_count) AS four_star_count,
+               SUM(ps.five_star_count) AS five_star_count
+        FROM product_stats ps
+        JOIN product p ON p.id = ps.product_id
+        WHERE ps.product_id IN (:productIds) AND p.shop_id IS NOT NULL
+        GROUP BY p.shop_id
+    ) d
+    WHERE s.shop_id = d.shop_id
+""", nativeQuery = true)
+    int removeProducts(@Param("productIds") Collection<String> productIds);
+}
@@ -2,6 +2,8 @@ package com.skripsi.siap_sewa.repository;
 
 import com.skripsi.siap_sewa.entity.CustomerEntity;
 import com.skripsi.siap_sewa.entity.ShopEntity;
+import com.skripsi.siap_sewa.repository.projection.ShopLocationView;
+import com.skripsi.siap_sewa.repository.projection.ShopSearchView;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -16,12 +18,6 @@ public interface ShopRepository  extends JpaRepository<ShopEntity, String> {
 
     boolean existsByName(String name);
 
-    @Query("SELECT s FROM ShopEntity s WHERE LOWER(s.name) LIKE LOWER(concat('%', :keyword, '%')) ORDER BY s.name ASC")
-    List<ShopEntity> searchShops(@Param("keyword") String keyword);
-
-    @Query("SELECT s FROM ShopEntity s WHERE LOWER(s.name) LIKE LOWER(concat('%', :shopName, '%')) ORDER BY s.name ASC")
-    List<ShopEntity> findSimilarShopsByName(@Param("shopName") String shopName);
-
     Page<ShopEntity> findAll(Pageable pageable);
 
     @Query("SELECT s FROM ShopEntity s WHERE s.customer.id = :customerId")
@@ -29,5 +25,11 @@ public interface ShopRepository  extends JpaRepository<ShopEntity, String> {
 
     List<ShopEntity> findByRegencyIgnoreCase(String regency);
 
+    @Query("SELECT s.id AS shopId, s.regency AS regency, s.province AS province FROM ShopEntity s")
+    List<ShopLocationView> findAllShopLocations();
+
+    @Query("SELECT s.id AS id, s.name AS name, s.image AS image FROM ShopEntity s")
+    List<ShopSearchView> findAllShopSearchViews();
+
 
 }
@@ -0,0 +1,29 @@
+package com.skripsi.siap_sewa.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * One cart row together with its product and the product's shop, so a customer's
+ * cart is a single query instead of a product and a shop select per item.
+ */
+public record CartItemView(
+        String cartId,
+        int quantity,
+        LocalDate startRentDate,
+        LocalDate endRentDate,
+        String productId,
+        String productName,
+        String image,
+        int stock,
+        BigDecimal deposit,
+        int minRented,
+        int rentCategory,
+        BigDecimal dailyPrice,
+        BigDecimal weeklyPrice,
+        BigDecimal monthlyPrice,
+        BigDecimal lowestPrice,
+        String shopId,
+        String shopName
+) {
+}
@@ -0,0 +1,29 @@
+package com.skripsi.siap_sewa.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Flat row with exactly the columns a product card needs, so listings never
+ * touch the shop, review or transaction associations of {@code ProductEntity}.
+ * Stats columns are null when the product has no PRODUCT_STATS row yet.
+ */
+public record ProductCardView(
+        String id,
+        String name,
+        String category,
+        int rentCategory,
+        boolean isRnb,
+        String image,
+        BigDecimal dailyPrice,
+        BigDecimal weeklyPrice,
+        BigDecimal monthlyPrice,
+        BigDecimal lowestPrice,
+        int stock,
+        String status,
+        String regency,
+        Integer reviewCount,
+        Double ratingSum,
+        Integer rentedCount,
+        Double weightedRating
+) {
+}
@@ -0,0 +1,13 @@
+package com.skripsi.siap_sewa.repository.projection;
+
+/**
+ * Number of matching products sharing one combination of the facet columns.
+ */
+public record ProductFacetRow(
+        String category,
+        String province,
+        int rentCategory,
+        boolean isRnb,
+        long count
+) {
+}
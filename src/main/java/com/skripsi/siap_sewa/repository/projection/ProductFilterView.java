@@ -0,0 +1,9 @@
+package com.skripsi.siap_sewa.repository.projection;
+
+public interface ProductFilterView {
+    String getId();
+    String getCategory();
+    Integer getRentCategory();
+    Boolean getIsRnb();
+    String getShopId();
+}
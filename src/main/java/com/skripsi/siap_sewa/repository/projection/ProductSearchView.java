@@ -0,0 +1,8 @@
+package com.skripsi.siap_sewa.repository.projection;
+
+public interface ProductSearchView {
+    String getId();
+    String getName();
+    String getCategory();
+    String getImage();
+}
@@ -0,0 +1,6 @@
+package com.skripsi.siap_sewa.repository.projection;
+
+public interface ProductShopView {
+    String getProductId();
+    String getShopId();
+}
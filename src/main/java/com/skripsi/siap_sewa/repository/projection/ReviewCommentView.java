@@ -0,0 +1,6 @@
+package com.skripsi.siap_sewa.repository.projection;
+
+public interface ReviewCommentView {
+    String getId();
+    String getComment();
+}
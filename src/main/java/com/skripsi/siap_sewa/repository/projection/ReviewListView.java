@@ -0,0 +1,21 @@
+package com.skripsi.siap_sewa.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row of a review listing together with the reviewer and the reviewed product,
+ * so a page of reviews is a single query instead of one customer select per review.
+ * Reviewer columns are null when the customer no longer exists.
+ */
+public record ReviewListView(
+        String id,
+        String comment,
+        String image,
+        Double rating,
+        LocalDateTime createdAt,
+        String username,
+        String userImage,
+        String productName,
+        String productImage
+) {
+}
@@ -0,0 +1,7 @@
+package com.skripsi.siap_sewa.repository.projection;
+
+public interface ShopLocationView {
+    String getShopId();
+    String getRegency();
+    String getProvince();
+}
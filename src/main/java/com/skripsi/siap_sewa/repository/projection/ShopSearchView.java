@@ -0,0 +1,7 @@
+package com.skripsi.siap_sewa.repository.projection;
+
+public interface ShopSearchView {
+    String getId();
+    String getName();
+    String getImage();
+}
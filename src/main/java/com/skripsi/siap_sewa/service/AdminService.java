@@ -11,6 +11,9 @@ import com.skripsi.siap_sewa.dto.product.PaginationResponse;
 import com.skripsi.siap_sewa.dto.shop.EditShopRequest;
 import com.skripsi.siap_sewa.entity.ShopEntity;
 import com.skripsi.siap_sewa.exception.PhoneNumberExistException;
+import com.skripsi.siap_sewa.index.ProductFilterIndex;
+import com.skripsi.siap_sewa.index.ProductLocalityIndex;
+import com.skripsi.siap_sewa.index.SearchIndex;
 import com.skripsi.siap_sewa.repository.ShopRepository;
 import com.skripsi.siap_sewa.utils.CommonUtils;
 import org.springframework.data.domain.PageRequest;
@@ -44,6 +47,9 @@ public class AdminService {
     private final CustomerRepository customerRepository;
     private final ShopRepository shopRepository;
     private final JWTService jwtService;
+    private final ProductLocalityIndex productLocalityIndex;
+    private final ProductFilterIndex productFilterIndex;
+    private final SearchIndex searchIndex;
 
     public ResponseEntity<ApiResponse> loginAdmin(@Valid AdminLoginRequest request) {
         List<CustomerEntity> customerEntity =
@@ -301,6 +307,9 @@ public class AdminService {
             shop.setPostCode(request.getPostCode());
 
             shopRepository.save(shop);
+            productLocalityIndex.updateShop(shop.getId(), shop.getRegency(), shop.getProvince());
+            productFilterIndex.updateShop(shop.getId(), shop.getProvince());
+            searchIndex.putShop(shop.getId(), shop.getName(), shop.getImage());
 
             return commonUtils.setResponse(ErrorMessageEnum.SUCCESS, shop.getId());
         }
@@ -1,19 +1,22 @@
 package com.skripsi.siap_sewa.service;
 
+import com.skripsi.siap_sewa.cache.CartCountCache;
+import com.skripsi.siap_sewa.cache.CartSnapshotCache;
 import com.skripsi.siap_sewa.dto.ApiResponse;
 import com.skripsi.siap_sewa.dto.cart.AddCartRequest;
+import com.skripsi.siap_sewa.dto.cart.CartCountResponse;
 import com.skripsi.siap_sewa.dto.cart.CartResponse;
 import com.skripsi.siap_sewa.dto.cart.DeleteCartRequest;
 import com.skripsi.siap_sewa.dto.cart.EditCartRequest;
 import com.skripsi.siap_sewa.entity.CartEntity;
 import com.skripsi.siap_sewa.entity.CustomerEntity;
 import com.skripsi.siap_sewa.entity.ProductEntity;
-import com.skripsi.siap_sewa.entity.ShopEntity;
 import com.skripsi.siap_sewa.enums.ErrorMessageEnum;
 import com.skripsi.siap_sewa.exception.DataNotFoundException;
-import com.skripsi.siap_sewa.repository.CartRepository;
 import com.skripsi.siap_sewa.repository.CustomerRepository;
 import com.skripsi.siap_sewa.repository.ProductRepository;
+import com.skripsi.siap_sewa.repository.projection.CartItemView;
+import com.skripsi.siap_sewa.storage.CartStore;
 import com.skripsi.siap_sewa.utils.CommonUtils;
 import com.skripsi.siap_sewa.helper.ProductHelper;
 import lombok.RequiredArgsConstructor;
@@ -26,67 +29,27 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class CartService {
-    private final CartRepository cartRepository;
+    private final CartStore cartStore;
     private final CommonUtils commonUtils;
     private final ProductRepository productRepository;
     private final CustomerRepository customerRepository;
+    private final CartSnapshotCache cartSnapshotCache;
+    private final CartCountCache cartCountCache;
 
 
     public ResponseEntity<ApiResponse> getAllCartProductByCustomerId(String customerId) {
         try {
             log.info("Fetching active cart products for customer: {}", customerId);
 
-            List<CartEntity> activeCarts = cartRepository.findByCustomerId(customerId);
-
-            if (activeCarts.isEmpty()) {
-                log.info("No active carts found for customer: {}", customerId);
-                return commonUtils.setResponse(ErrorMessageEnum.SUCCESS,
-                        CartResponse.builder()
-                                .totalProductCart(0)
-                                .shops(Collections.emptyList())
-                                .build()
-                );
-            }
-
-            // Group by shop
-            Map<ShopEntity, List<CartEntity>> cartsByShop = activeCarts.stream()
-                    .collect(Collectors.groupingBy(cart -> cart.getProduct().getShop()));
-
-            // Build shop responses and calculate total count
-            List<CartResponse.ShopInfo> shopResponses = new ArrayList<>();
-            int totalCartItems = 0;
-
-            for (Map.Entry<ShopEntity, List<CartEntity>> entry : cartsByShop.entrySet()) {
-                ShopEntity shop = entry.getKey();
-                List<CartEntity> shopCarts = entry.getValue();
-
-                List<CartResponse.CartInfo> cartInfos = shopCarts.stream()
-                        .map(this::buildCartInfo)
-                        .toList();
-
-                shopResponses.add(CartResponse.ShopInfo.builder()
-                        .shopId(shop.getId())
-                        .shopName(shop.getName())
-                        .carts(cartInfos)
-                        .build());
-
-                totalCartItems += shopCarts.size();
-            }
-
-            // Build final response
-            CartResponse response = CartResponse.builder()
-                    .totalProductCart(totalCartItems)
-                    .shops(shopResponses)
-                    .build();
+            CartResponse response = cartSnapshotCache.get(customerId, () -> buildCartResponse(customerId));
 
             log.info("Successfully fetched {} shops with {} active cart items",
-                    shopResponses.size(), totalCartItems);
+                    response.getShops().size(), response.getTotalProductCart());
             return commonUtils.setResponse(ErrorMessageEnum.SUCCESS, response);
 
         } catch (Exception ex) {
@@ -95,37 +58,80 @@ public class CartService {
         }
     }
 
-    private CartResponse.CartInfo buildCartInfo(CartEntity cart) {
-        ProductEntity product = cart.getProduct();
-        boolean isAvailable = product.getStock() >= cart.getQuantity();
+    public ResponseEntity<ApiResponse> getCartItemCount(String customerId) {
+        try {
+            long count = cartCountCache.get(customerId, () -> cartStore.countByCustomerId(customerId));
+            return commonUtils.setResponse(ErrorMessageEnum.SUCCESS,
+                    CartCountResponse.builder().totalProductCart(count).build());
+        } catch (Exception ex) {
+            log.error("Failed to count cart items: {}", ex.getMessage(), ex);
+            return commonUtils.setResponse(ErrorMessageEnum.INTERNAL_SERVER_ERROR, null);
+        }
+    }
+
+    private CartResponse buildCartResponse(String customerId) {
+        List<CartItemView> activeCarts = cartStore.findItemViews(customerId);
+
+        if (activeCarts.isEmpty()) {
+            log.info("No active carts found for customer: {}", customerId);
+            return CartResponse.builder()
+                    .totalProductCart(0)
+                    .shops(Collections.emptyList())
+                    .build();
+        }
+
+        // Group by shop, rows arrive ordered by shop
+        Map<String, CartResponse.ShopInfo> shopsById = new LinkedHashMap<>();
+        for (CartItemView cart : activeCarts) {
+            shopsById.computeIfAbsent(cart.shopId(), shopId -> CartResponse.ShopInfo.builder()
+                            .shopId(shopId)
+                            .shopName(cart.shopName())
+                            .carts(new ArrayList<>())
+                            .build())
+                    .getCarts()
+                    .add(buildCartInfo(cart));
+        }
+
+        return CartResponse.builder()
+                .totalProductCart(activeCarts.size())
+                .shops(new ArrayList<>(shopsById.values()))
+                .build();
+    }
+
+    private CartResponse.CartInfo buildCartInfo(CartItemView cart) {
+        boolean isAvailable = cart.stock() >= cart.quantity();
         LocalDate today = LocalDate.now();
         boolean dateError;
-        if(ChronoUnit.DAYS.between(today, cart.getStartRentDate()) >= 5){
+        if(ChronoUnit.DAYS.between(today, cart.startRentDate()) >= 5){
             dateError = false;
         }else{
             dateError = true;
         }
 
+        BigDecimal price = cart.lowestPrice() != null
+                ? cart.lowestPrice()
+                : ProductHelper.getLowestPrice(cart.dailyPrice(), cart.weeklyPrice(), cart.monthlyPrice());
+
         return CartResponse.CartInfo.builder()
-                .cartId(cart.getId())
-                .productId(product.getId())
-                .productName(product.getName())
-                .price(ProductHelper.getLowestPrice(product))
-                .startRentDate(CommonUtils.formatDate(cart.getStartRentDate()))
-                .endRentDate(CommonUtils.formatDate(cart.getEndRentDate()))
+                .cartId(cart.cartId())
+                .productId(cart.productId())
+                .productName(cart.productName())
+                .price(price)
+                .startRentDate(CommonUtils.formatDate(cart.startRentDate()))
+                .endRentDate(CommonUtils.formatDate(cart.endRentDate()))
                 .rentDuration(CommonUtils.calculateRentDuration(
-                        cart.getStartRentDate(),
-                        cart.getEndRentDate()))
-                .quantity(cart.getQuantity())
+                        cart.startRentDate(),
+                        cart.endRentDate()))
+                .quantity(cart.quantity())
                 .isAvailableToRent(isAvailable)
-                .image(product.getImage())
-                .stock(product.getStock())
-                .deposit(product.getDeposit())
-                .minRented(product.getMinRented())
-                .rentCategory(CommonUtils.getRentDurationName(product.getRentCategory()))
-                .dailyPrice(product.getDailyPrice())
-                .weeklyPrice(product.getWeeklyPrice())
-                .monthlyPrice(product.getMonthlyPrice())
+                .image(cart.image())
+                .stock(cart.stock())
+                .deposit(cart.deposit())
+                .minRented(cart.minRented())
+                .rentCategory(CommonUtils.getRentDurationName(cart.rentCategory()))
+                .dailyPrice(cart.dailyPrice())
+                .weeklyPrice(cart.weeklyPrice())
+                .monthlyPrice(cart.monthlyPrice())
                 .dateError(dateError)
                 .build();
     }
@@ -135,7 +141,8 @@ public class CartService {
             log.info("Menambahkan produk ke cart: {}", request);
 
             // 1. Validasi customer exists
-            if (!customerRepository.existsById(request.getCustomerId())) {
+            Optional<CustomerEntity> customer = customerRepository.findById(request.getCustomerId());
+            if (customer.isEmpty()) {
                 return commonUtils.setResponse(ErrorMessageEnum.CUSTOMER_NOT_FOUND, null);
             }
 
@@ -153,96 +160,9 @@ public class CartService {
                 return commonUtils.setResponse(ErrorMessageEnum.INSUFFICIENT_STOCK, null);
             }
 
-            // 5. Cari cart item yang sudah ada dengan tanggal yang sama
-            Optional<CartEntity> existingCartItem = cartRepository.findByCustomerIdAndProductIdAndStartRentDateAndEndRentDate(
-                    request.getCustomerId(),
-                    request.getProductId(),
-                    request.getStartRentDate(),
-                    request.getEndRentDate());
-
-            if (existingCartItem.isPresent()) {
-                // Jika sudah ada dengan tanggal yang sama, update quantity
-                CartEntity cartItem = existingCartItem.get();
-                int newQuantity = cartItem.getQuantity() + request.getQuantity();
-
-                // Validasi quantity baru
-                int maxAllowed = product.getStock();
-                if (newQuantity > maxAllowed) {
-                    return commonUtils.setResponse(
-                            ErrorMessageEnum.MAX_QUANTITY_EXCEEDED,
-                            Map.of("max_allowed", maxAllowed)
-                    );
-                }
-
-                if (newQuantity < product.getMinRented()) {
-                    return commonUtils.setResponse(
-                            ErrorMessageEnum.MIN_RENT_NOT_MET,
-                            Map.of("min_rent", product.getMinRented())
-                    );
-                }
-
-                // Update quantity dan total amount
-                cartItem.setQuantity(newQuantity);
-                cartItem.setTotalAmount(calculateRentalPrice(
-                        product,
-                        request.getStartRentDate(),
-                        request.getEndRentDate(),
-                        newQuantity
-                ));
-
-                cartItem.setLastUpdateAt(LocalDateTime.now());
-
-                cartRepository.save(cartItem);
-            } else {
-                // Jika tidak ada dengan tanggal yang sama, buat baru
-                // Validasi quantity
-                if (request.getQuantity() > product.getStock()) {
-                    return commonUtils.setResponse(
-                            ErrorMessageEnum.MAX_QUANTITY_EXCEEDED,null
-                    );
-                }
-
-                if (request.getQuantity() < product.getMinRented()) {
-                    return commonUtils.setResponse(
-                            ErrorMessageEnum.MIN_RENT_NOT_MET,
-                            Map.of("min_rent", product.getMinRented())
-                    );
-                }
-
-                // Hitung total amount
-                BigDecimal totalAmount = calculateRentalPrice(
-                        product,
-                        request.getStartRentDate(),
-                        request.getEndRentDate(),
-                        request.getQuantity()
-                );
-
-                CustomerEntity customer = customerRepository.findById(request.getCustomerId())
-                        .orElseThrow(() -> new DataNotFoundException("Customer tidak ditemukan"));
-
-                String customerAddress = customer.getStreet() + "," +
-                        customer.getDistrict() + "," +
-                        customer.getRegency() + "," +
-                        customer.getProvince() + "," +
-                        customer.getPostCode();
-
-                // Buat cart item baru
-                CartEntity newCartItem = CartEntity.builder()
-                        .customerId(request.getCustomerId())
-                        .product(product)
-                        .quantity(request.getQuantity())
-                        .totalAmount(totalAmount)
-                        .startRentDate(request.getStartRentDate())
-                        .endRentDate(request.getEndRentDate())
-                        .shippingAddress(customerAddress)
-                        .createdAt(LocalDateTime.now())
-                        .lastUpdateAt(LocalDateTime.now())
-                        .build();
-
-                cartRepository.save(newCartItem);
-            }
-
-            return commonUtils.setResponse(ErrorMessageEnum.SUCCESS, null);
+            // 5. Gabungkan dengan cart item yang sudah ada atau buat baru
+            return cartStore.withCustomerLock(request.getCustomerId(),
+                    () -> addOrMergeCartItem(request, product, customer.get()));
 
         } catch (DataNotFoundException ex) {
             throw ex;
@@ -252,6 +172,101 @@ public class CartService {
         }
     }
 
+    private ResponseEntity<ApiResponse> addOrMergeCartItem(AddCartRequest request,
+                                                          ProductEntity product,
+                                                          CustomerEntity customer) {
+        // Cari cart item yang sudah ada dengan tanggal yang sama
+        Optional<CartEntity> existingCartItem = cartStore.findByCustomerIdAndProductIdAndDates(
+                request.getCustomerId(),
+                request.getProductId(),
+                request.getStartRentDate(),
+                request.getEndRentDate());
+
+        if (existingCartItem.isPresent()) {
+            // Jika sudah ada dengan tanggal yang sama, update quantity
+            CartEntity cartItem = existingCartItem.get();
+            int newQuantity = cartItem.getQuantity() + request.getQuantity();
+
+            // Validasi quantity baru
+            int maxAllowed = product.getStock();
+            if (newQuantity > maxAllowed) {
+                return commonUtils.setResponse(
+                        ErrorMessageEnum.MAX_QUANTITY_EXCEEDED,
+                        Map.of("max_allowed", maxAllowed)
+                );
+            }
+
+            if (newQuantity < product.getMinRented()) {
+                return commonUtils.setResponse(
+                        ErrorMessageEnum.MIN_RENT_NOT_MET,
+                        Map.of("min_rent", product.getMinRented())
+                );
+            }
+
+            // Update quantity dan total amount
+            cartItem.setQuantity(newQuantity);
+            cartItem.setTotalAmount(calculateRentalPrice(
+                    product,
+                    request.getStartRentDate(),
+                    request.getEndRentDate(),
+                    newQuantity
+            ));
+
+            cartItem.setLastUpdateAt(LocalDateTime.now());
+
+            cartStore.save(cartItem);
+            cartSnapshotCache.invalidate(request.getCustomerId());
+        } else {
+            // Jika tidak ada dengan tanggal yang sama, buat baru
+            // Validasi quantity
+            if (request.getQuantity() > product.getStock()) {
+                return commonUtils.setResponse(
+                        ErrorMessageEnum.MAX_QUANTITY_EXCEEDED,null
+                );
+            }
+
+            if (request.getQuantity() < product.getMinRented()) {
+                return commonUtils.setResponse(
+                        ErrorMessageEnum.MIN_RENT_NOT_MET,
+                        Map.of("min_rent", product.getMinRented())
+                );
+            }
+
+            // Hitung total amount
+            BigDecimal totalAmount = calculateRentalPrice(
+                    product,
+                    request.getStartRentDate(),
+                    request.getEndRentDate(),
+                    request.getQuantity()
+            );
+
+            String customerAddress = customer.getStreet() + "," +
+                    customer.getDistrict() + "," +
+                    customer.getRegency() + "," +
+                    customer.getProvince() + "," +
+                    customer.getPostCode();
+
+            // Buat cart item baru
+            CartEntity newCartItem = CartEntity.builder()
+                    .customerId(request.getCustomerId())
+                    .product(product)
+                    .quantity(request.getQuantity())
+                    .totalAmount(totalAmount)
+                    .startRentDate(request.getStartRentDate())
+                    .endRentDate(request.getEndRentDate())
+                    .shippingAddress(customerAddress)
+                    .createdAt(LocalDateTime.now())
+                    .lastUpdateAt(LocalDateTime.now())
+                    .build();
+
+            cartStore.save(newCartItem);
+            cartSnapshotCache.invalidate(request.getCustomerId());
+            cartCountCache.adjust(request.getCustomerId(), 1);
+        }
+
+        return commonUtils.setResponse(ErrorMessageEnum.SUCCESS, null);
+    }
+
     private BigDecimal calculateRentalPrice(ProductEntity product, LocalDate startDate,
                                             LocalDate endDate, int quantity) {
         long totalDays = ChronoUnit.DAYS.between(startDate, endDate);
@@ -285,7 +300,7 @@ public class CartService {
             log.info("Mengedit produk di cart: {}", request);
 
             // 1. Cari cart item
-            CartEntity cartItem = cartRepository.findById(request.getCartId())
+            CartEntity cartItem = cartStore.findById(request.getCartId())
                     .orElseThrow(() -> new DataNotFoundException("Item cart tidak ditemukan"));
 
             ProductEntity product = cartItem.getProduct();
@@ -326,7 +341,8 @@ public class CartService {
             cartItem.setTotalAmount(totalAmount);
             cartItem.setLastUpdateAt(LocalDateTime.now());
 
-            cartRepository.save(cartItem);
+            cartStore.save(cartItem);
+            cartSnapshotCache.invalidate(cartItem.getCustomerId());
 
             return commonUtils.setResponse(ErrorMessageEnum.SUCCESS,null);
 
@@ -341,7 +357,7 @@ public class CartService {
     public ResponseEntity<ApiResponse> deleteCartItem(DeleteCartRequest request) {
         try {
             // 1. Cari cart item
-            CartEntity cartItem = cartRepository.findById(request.getCartId())
+            CartEntity cartItem = cartStore.findById(request.getCartId())
                     .orElseThrow(() -> new DataNotFoundException("Cart item dengan ID "  + request.getCartId() + "tidak ditemukan"));
 
             // 2. Validasi kepemilikan
@@ -353,7 +369,9 @@ public class CartService {
             }
 
             // 3. Hapus dari database (hard delete)
-            cartRepository.delete(cartItem);
+            cartStore.delete(cartItem);
+            cartSnapshotCache.invalidate(cartItem.getCustomerId());
+            cartCountCache.adjust(cartItem.getCustomerId(), -1);
             log.info("Cart {} berhasil dihapus secara permanen", request.getCartId());
 
             return commonUtils.setResponse(
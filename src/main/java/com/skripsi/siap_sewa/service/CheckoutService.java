@@ -1,5 +1,6 @@
 package com.skripsi.siap_sewa.service;
 
+import com.skripsi.siap_sewa.cache.ProductDetailCache;
 import com.skripsi.siap_sewa.dto.ApiResponse;
 import com.skripsi.siap_sewa.dto.checkout.*;
 import com.skripsi.siap_sewa.entity.*;
@@ -8,6 +9,9 @@ import com.skripsi.siap_sewa.exception.*;
 import com.skripsi.siap_sewa.repository.*;
 import com.skripsi.siap_sewa.helper.PriceCalculator;
 import com.skripsi.siap_sewa.helper.ShippingCalculator;
+import com.skripsi.siap_sewa.stock.StockReservation;
+import com.skripsi.siap_sewa.stock.StockReservationEngine;
+import com.skripsi.siap_sewa.storage.CartStore;
 import com.skripsi.siap_sewa.utils.CommonUtils;
 import com.skripsi.siap_sewa.utils.Constant;
 import jakarta.transaction.Transactional;
@@ -32,11 +36,14 @@ public class CheckoutService {
 
     private final ProductRepository productRepository;
     private final CustomerRepository customerRepository;
-    private final CartRepository cartRepository;
+    private final CartStore cartStore;
     private final TransactionRepository transactionRepository;
     private final CommonUtils commonUtils;
     private final ShopRepository shopRepository;
     private final WalletReportRepository walletReportRepository;
+    private final ProductStatsService productStatsService;
+    private final ProductDetailCache productDetailCache;
+    private final StockReservationEngine stockReservationEngine;
 
     private static final DateTimeFormatter DATE_FORMATTER =
             DateTimeFormatter.ofPattern("dd MMMM yyyy", Locale.forLanguageTag("id-ID"));
@@ -91,23 +98,34 @@ public class CheckoutService {
                     request.getCartIds().size(), request.getCustomerId());
 
             // Fetch and validate carts
-            List<CartEntity> carts = cartRepository.findAllById(request.getCartIds());
+            List<CartEntity> carts = cartStore.findAllById(request.getCartIds());
             validateCarts(carts, request.getCustomerId());
 
+            // Load every product of the cart with its shop in one query
+            Map<String, ProductEntity> products = productRepository.findAllWithShopByIdIn(
+                            carts.stream().map(cart -> cart.getProduct().getId()).collect(Collectors.toSet()))
+                    .stream()
+                    .collect(Collectors.toMap(ProductEntity::getId, product -> product));
+
             CustomerEntity customer = customerRepository.findById(request.getCustomerId())
                     .orElseThrow(() -> new DataNotFoundException("Customer not found"));
 
             // Convert carts to checkout items with their individual properties
             List<CartCheckoutItem> checkoutItems = carts.stream()
                     .map(cart -> {
+                        ProductEntity product = products.get(cart.getProduct().getId());
+                        if (product == null) {
+                            throw new DataNotFoundException("Product not found");
+                        }
+
                         // Validate stock for each cart item
-                        if (cart.getProduct().getStock() < cart.getQuantity()) {
-                            throw new InsufficientStockException(cart.getProduct().getStock(), cart.getQuantity());
+                        if (product.getStock() < cart.getQuantity()) {
+                            throw new InsufficientStockException(product.getStock(), cart.getQuantity());
                         }
 
                         // Create checkout item
                         return new CartCheckoutItem(
-                                cart.getProduct(),
+                                product,
                                 cart.getQuantity(),
                                 cart.getStartRentDate(),
                                 cart.getEndRentDate()
@@ -295,8 +313,8 @@ public class CheckoutService {
                 shippingPartner
         ).shippingPrice();
 
-        // 5. Create transaction
-        TransactionEntity transaction = TransactionEntity.builder()
+        // 5. Create transaction, persisted by the caller
+        return TransactionEntity.builder()
                 .customer(customer)
                 .products(Set.of(product))
                 .transactionNumber(transactionNumber)
@@ -320,8 +338,6 @@ public class CheckoutService {
                 .shippingPartner(shippingPartner)
                 .shippingPrice(shippingPrice)
                 .build();
-
-        return transactionRepository.save(transaction);
     }
 
     private String generateTransactionNumber() {
@@ -340,8 +356,8 @@ public class CheckoutService {
         Map<ShopEntity, List<CartCheckoutItem>> itemsByShop = checkoutItems.stream()
                 .collect(Collectors.groupingBy(item -> item.product.getShop()));
 
-        List<String> transactionIds = new ArrayList<>();
-        List<String> processedShopIds = new ArrayList<>();
+        // Build every transaction first and persist them in one batched flush
+        List<TransactionEntity> transactions = new ArrayList<>(checkoutItems.size());
 
         for (Map.Entry<ShopEntity, List<CartCheckoutItem>> entry : itemsByShop.entrySet()) {
             ShopEntity shop = entry.getKey();
@@ -363,7 +379,7 @@ public class CheckoutService {
                             shippingPartnerId);
 
                     // Create transaction with cart-specific data
-                    TransactionEntity transaction = createTransaction(
+                    transactions.add(createTransaction(
                             item.product,
                             customer,
                             shop,
@@ -372,50 +388,22 @@ public class CheckoutService {
                             item.endDate,
                             shippingInfo.partnerName(),
                             transactionNumber
-                    );
-
-                    transactionIds.add(transaction.getId());
-
-                    // Update product stock
-//                    item.product.setStock(item.product.getStock() - item.quantity);
-                    productRepository.save(item.product);
+                    ));
                 }
 
-                // Mark shop as successfully processed
-                processedShopIds.add(shop.getId());
-
             } catch (Exception e) {
                 log.error("Failed to process items from shop {}: {}", shop.getName(), e.getMessage());
 
-                // Rollback stock updates for this shop's items that might have been processed
-                for (CartCheckoutItem item : shopItems) {
-                    try {
-                        ProductEntity product = productRepository.findById(item.product.getId()).orElse(null);
-                        if (product != null) {
-                            // Add back quantity for any products that might have been decremented
-                            product.setStock(product.getStock() + item.quantity);
-                            productRepository.save(product);
-                        }
-                    } catch (Exception ex) {
-                        log.error("Error reverting stock for product {}: {}", item.product.getId(), ex.getMessage());
-                    }
-                }
-
-                // Rollback transactions for this shop
-                if (!processedShopIds.contains(shop.getId())) {
-                    List<TransactionEntity> shopTransactions = transactionRepository.findByShopId(shop.getId());
-                    for (TransactionEntity transaction : shopTransactions) {
-                        if (transaction.getCreatedAt().isAfter(LocalDateTime.now().minusMinutes(5))) {
-                            transactionRepository.delete(transaction);
-                        }
-                    }
-                }
-
+                // Nothing has been written yet, so there is nothing to revert
                 throw new CheckoutProcessingException(ErrorMessageEnum.FAILED,"", "");
             }
         }
 
-        return transactionIds;
+        transactionRepository.saveAll(transactions);
+
+        return transactions.stream()
+                .map(TransactionEntity::getId)
+                .toList();
     }
 
     private static class CartCheckoutItem {
@@ -525,12 +513,14 @@ public class CheckoutService {
 
         ShopEntity shop = shopRepository.findById(rentedTransaction.getShopId()).orElseThrow(()-> new DataNotFoundException("Shop Not Found"));
 
-        validateProductStock(product, rentedTransaction);
+        StockReservation reservation = validateProductStock(product, rentedTransaction);
         TransactionEntity rnbTransaction = generateBuyedTransaction(rentedTransaction,product, shop, customer, request);
 
         rentedTransaction.setStatus("Selesai");
         rentedTransaction.setLastUpdateAt(LocalDateTime.now());
         transactionRepository.saveAll(List.of(rnbTransaction, rentedTransaction));
+        stockReservationEngine.commit(reservation.id());
+        productStatsService.recordTransactions(List.of(rnbTransaction), 1);
 
         updateWalletReport(customer, shop, rnbTransaction);
         return commonUtils.setResponse(ErrorMessageEnum.SUCCESS, null);
@@ -584,12 +574,10 @@ public class CheckoutService {
                 .build();
     }
 
-    private void validateProductStock (ProductEntity product, TransactionEntity transaction){
-        if (product.getStock() >= transaction.getQuantity()) {
-            product.setStock(product.getStock() - transaction.getQuantity());
-            productRepository.save(product);
-        } else {
-            throw new InsufficientStockException(product.getStock(), transaction.getQuantity());
-        }
+    private StockReservation validateProductStock (ProductEntity product, TransactionEntity transaction){
+        StockReservation reservation = stockReservationEngine.reserve(product.getId(), transaction.getQuantity())
+                .orElseThrow(() -> new InsufficientStockException(product.getStock(), transaction.getQuantity()));
+        productDetailCache.invalidate(product.getId());
+        return reservation;
     }
 }
\ No newline at end of file
@@ -24,6 +24,18 @@ public class CloudinaryService {
             return null;
         }
 
+        validateImage(file);
+
+        Map<?, ?> uploadResult = cloudinary.uploader()
+                .upload(file.getBytes(),
+                        ObjectUtils.asMap(
+                                "folder", "customer_profiles",
+                                "resource_type", "image"
+                        ));
+        return (String) uploadResult.get("secure_url");
+    }
+
+    public void validateImage(MultipartFile file) {
         // Validasi ukuran file (max 1MB)
         if (file.getSize() > 1048576) {
             throw new IllegalArgumentException("Ukuran gambar maksimal 1MB");
@@ -37,14 +49,6 @@ public class CloudinaryService {
                         contentType.equals("image/jpg"))) {
             throw new IllegalArgumentException("Format gambar harus JPEG, JPG, atau PNG");
         }
-
-        Map<?, ?> uploadResult = cloudinary.uploader()
-                .upload(file.getBytes(),
-                        ObjectUtils.asMap(
-                                "folder", "customer_profiles",
-                                "resource_type", "image"
-                        ));
-        return (String) uploadResult.get("secure_url");
     }
 
     public void deleteImage(String publicId) throws IOException {
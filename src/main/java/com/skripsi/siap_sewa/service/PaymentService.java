@@ -1,5 +1,6 @@
 package com.skripsi.siap_sewa.service;
 
+import com.skripsi.siap_sewa.cache.ProductDetailCache;
 import com.skripsi.siap_sewa.dto.ApiResponse;
 import com.skripsi.siap_sewa.dto.payment.PaymentRequest;
 import com.skripsi.siap_sewa.dto.payment.PaymentResponse;
@@ -9,6 +10,7 @@ import com.skripsi.siap_sewa.exception.DataNotFoundException;
 import com.skripsi.siap_sewa.exception.InsufficientBalanceException;
 import com.skripsi.siap_sewa.exception.TransactionProcessingException;
 import com.skripsi.siap_sewa.repository.*;
+import com.skripsi.siap_sewa.stock.StockReservationEngine;
 import com.skripsi.siap_sewa.utils.CommonUtils;
 import com.skripsi.siap_sewa.utils.Constant;
 import jakarta.transaction.Transactional;
@@ -23,7 +25,6 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -35,8 +36,10 @@ public class PaymentService {
     private final CustomerRepository customerRepository;
     private final ShopRepository shopRepository;
     private final WalletReportRepository walletReportRepository;
-    private final ProductRepository productRepository;
     private final CommonUtils commonUtils;
+    private final ProductStatsService productStatsService;
+    private final ProductDetailCache productDetailCache;
+    private final StockReservationEngine stockReservationEngine;
 
     @Transactional
     public ResponseEntity<ApiResponse> processPayment(PaymentRequest request) {
@@ -140,6 +143,9 @@ public class PaymentService {
 
         // 6. Save customer with updated balance
         customerRepository.save(customer);
+
+        // 7. Count the paid transactions in the product stats
+        productStatsService.recordTransactions(transactions, 1);
     }
 
     private void validateTransactions(List<TransactionEntity> transactions, String customerId) {
@@ -190,14 +196,10 @@ public class PaymentService {
     private void returnProductStock(List<TransactionEntity> transactions) {
         transactions.forEach(t -> {
             t.getProducts().forEach(p -> {
-                p.setStock(p.getStock() + t.getQuantity());
+                stockReservationEngine.restock(p.getId(), t.getQuantity());
+                productDetailCache.invalidate(p.getId());
             });
         });
-        // Save all updated products
-        Set<ProductEntity> productsToUpdate = transactions.stream()
-                .flatMap(t -> t.getProducts().stream())
-                .collect(Collectors.toSet());
-        productRepository.saveAll(productsToUpdate);
     }
 
     private void processSingleTransaction(TransactionEntity transaction, CustomerEntity customer) {
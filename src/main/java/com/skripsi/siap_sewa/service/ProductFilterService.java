@@ -1,15 +1,22 @@
 package com.skripsi.siap_sewa.service;
 
 import com.skripsi.siap_sewa.dto.ApiResponse;
+import com.skripsi.siap_sewa.dto.product.CursorPaginationResponse;
 import com.skripsi.siap_sewa.dto.product.PaginationResponse;
+import com.skripsi.siap_sewa.dto.product.ProductFacetResponse;
 import com.skripsi.siap_sewa.dto.product.ProductFilterRequest;
 import com.skripsi.siap_sewa.dto.product.ProductResponse;
 import com.skripsi.siap_sewa.entity.ProductEntity;
 import com.skripsi.siap_sewa.enums.ErrorMessageEnum;
+import com.skripsi.siap_sewa.index.ProductFilterIndex;
+import com.skripsi.siap_sewa.index.ProductLocalityIndex;
+import com.skripsi.siap_sewa.mapper.ProductMapper;
 import com.skripsi.siap_sewa.repository.ProductRepository;
+import com.skripsi.siap_sewa.repository.projection.ProductCardView;
+import com.skripsi.siap_sewa.repository.projection.ProductFacetRow;
+import com.skripsi.siap_sewa.spesification.ProductCursor;
 import com.skripsi.siap_sewa.spesification.ProductSpecification;
 import com.skripsi.siap_sewa.utils.CommonUtils;
-import com.skripsi.siap_sewa.helper.ProductHelper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -19,8 +26,17 @@ import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -28,59 +44,208 @@ import java.util.List;
 public class ProductFilterService {
     private final ProductRepository productRepository;
     private final CommonUtils commonUtils;
+    private final ProductFilterIndex productFilterIndex;
+    private final ProductMapper productMapper;
     
     public ResponseEntity<ApiResponse> getFilteredProducts(ProductFilterRequest filterRequest) {
-        try {
+        if (filterRequest.isCursorMode()) {
+            return getFilteredProductsByCursor(filterRequest);
+        }
 
-            Specification<ProductEntity> spec = ProductSpecification.withFilters(filterRequest);
-            Pageable pageable = PageRequest.of(
-                    filterRequest.getPage() - 1,
-                    filterRequest.getSize(),
-                    Sort.by(filterRequest.getSortDirection(), filterRequest.getSortBy())
-            );
+        try {
 
-            Page<ProductEntity> resultPage = productRepository.findAll(spec, pageable);
+            Specification<ProductEntity> spec = filterSpecification(filterRequest);
+            Pageable pageable;
+            if (ProductSpecification.isStatsSort(filterRequest.getSortBy())) {
+                spec = spec.and(ProductSpecification.orderByStats(
+                        filterRequest.getSortBy(), filterRequest.getSortDirection()));
+                pageable = PageRequest.of(filterRequest.getPage() - 1, filterRequest.getSize());
+            } else {
+                pageable = PageRequest.of(
+                        filterRequest.getPage() - 1,
+                        filterRequest.getSize(),
+                        Sort.by(filterRequest.getSortDirection(), filterRequest.getSortBy())
+                );
+            }
 
-            List<ProductEntity> filteredContent = applyPostFilters(resultPage.getContent(), filterRequest);
+            Page<ProductCardView> resultPage = productRepository.findProductCards(spec, pageable);
 
             PaginationResponse<ProductResponse> response = createPaginationResponse(
-                    filteredContent,
+                    resultPage.getContent(),
                     resultPage.getNumber() + 1,
                     resultPage.getSize(),
                     (int) resultPage.getTotalElements(),
                     resultPage.getTotalPages()
             );
 
-            if (filteredContent.isEmpty() && resultPage.getTotalElements() > 0) {
-                log.info("Post-filtering removed all results. Original count: {}", resultPage.getTotalElements());
+            return commonUtils.setResponse(ErrorMessageEnum.SUCCESS, response);
+        } catch (Exception ex) {
+            log.error("Error filtering products: {}", ex.getMessage(), ex);
+            return commonUtils.setResponse(ErrorMessageEnum.FAILED, null);
+        }
+    }
+
+    /**
+     * Cursor mode: seeks past the (sort key, id) of the previous page's last product
+     * and selects one extra card to know whether a next page exists. One query per page;
+     * the cards carry the sort key, so the next cursor is built from the last one.
+     */
+    private ResponseEntity<ApiResponse> getFilteredProductsByCursor(ProductFilterRequest filterRequest) {
+        String sortBy = filterRequest.getSortBy();
+        Sort.Direction direction = filterRequest.getSortDirection();
+
+        ProductCursor after = null;
+        if (StringUtils.hasText(filterRequest.getCursor())) {
+            after = ProductCursor.decode(filterRequest.getCursor());
+            if (!after.sortBy().equals(sortBy) || after.direction() != direction) {
+                throw new IllegalArgumentException("Cursor does not match the requested sort");
             }
+        }
+
+        try {
+            int size = filterRequest.getSize();
+            Specification<ProductEntity> spec = filterSpecification(filterRequest)
+                    .and(ProductSpecification.seek(sortBy, direction, after));
+
+            List<ProductCardView> rows = productRepository.findProductCards(spec, size + 1);
+            boolean hasNext = rows.size() > size;
+            List<ProductCardView> cards = hasNext ? rows.subList(0, size) : rows;
+
+            String nextCursor = hasNext
+                    ? ProductCursor.after(cards.get(cards.size() - 1), sortBy, direction).encode()
+                    : null;
+
+            List<ProductResponse> content = cards.stream()
+                    .map(productMapper::toProductResponse)
+                    .toList();
+
+            CursorPaginationResponse<ProductResponse> response = CursorPaginationResponse.<ProductResponse>builder()
+                    .content(content)
+                    .pageSize(size)
+                    .nextCursor(nextCursor)
+                    .build();
 
             return commonUtils.setResponse(ErrorMessageEnum.SUCCESS, response);
         } catch (Exception ex) {
-            log.error("Error filtering products: {}", ex.getMessage(), ex);
+            log.error("Error filtering products by cursor: {}", ex.getMessage(), ex);
             return commonUtils.setResponse(ErrorMessageEnum.FAILED, null);
         }
     }
 
-    private List<ProductEntity> applyPostFilters(List<ProductEntity> products, ProductFilterRequest filterRequest) {
-        if (filterRequest.getMinRatings() == null || filterRequest.getMinRatings().isEmpty()) {
-            return products;
+    /**
+     * Filter specification where the category, province, rent duration and isRnb filters
+     * are answered by the bitmap index as an id list when it can, leaving only the name,
+     * price, rating and shop filters to the database.
+     */
+    private Specification<ProductEntity> filterSpecification(ProductFilterRequest filterRequest) {
+        Optional<List<String>> matches = productFilterIndex.match(filterRequest);
+        if (matches.isEmpty()) {
+            return ProductSpecification.withFilters(filterRequest);
         }
+        return ProductSpecification.withFilters(withoutFacets(filterRequest))
+                .and(ProductSpecification.idIn(matches.get()));
+    }
 
-        return products.stream()
-                .filter(product -> {
-                    Double rating = ProductHelper.calculateWeightedRating(product.getReviews());
-                    return filterRequest.getMinRatings().stream()
-                            .anyMatch(min -> rating >= min && rating < min + 1);
-                })
-                .toList();
+    /**
+     * Counts for every facet of the filter UI from one grouped query: rows are grouped by
+     * all four facet columns under the non-facet filters, then each facet sums the groups
+     * that match the other facets' selections.
+     */
+    public ResponseEntity<ApiResponse> getFacetCounts(ProductFilterRequest filterRequest) {
+        try {
+            List<ProductFacetRow> rows = productRepository.countFacets(
+                    ProductSpecification.withFilters(withoutFacets(filterRequest)));
+
+            Set<String> provinces = CollectionUtils.isEmpty(filterRequest.getProvinces())
+                    ? null
+                    : filterRequest.getProvinces().stream()
+                            .map(ProductLocalityIndex::normalize)
+                            .filter(Objects::nonNull)
+                            .collect(Collectors.toSet());
+            FacetSelection selection = new FacetSelection(
+                    filterRequest.getCategories(), provinces,
+                    filterRequest.getRentDurations(), filterRequest.getIsRnbOptions());
+
+            long totalItems = 0;
+            Map<String, Long> categories = new TreeMap<>();
+            Map<String, Long> provinceCounts = new TreeMap<>();
+            Map<Integer, Long> rentDurations = new TreeMap<>();
+            Map<Boolean, Long> isRnbOptions = new TreeMap<>();
+
+            for (ProductFacetRow row : rows) {
+                boolean category = selection.matchesCategory(row);
+                boolean province = selection.matchesProvince(row);
+                boolean rentDuration = selection.matchesRentDuration(row);
+                boolean isRnb = selection.matchesIsRnb(row);
+
+                if (category && province && rentDuration && isRnb) {
+                    totalItems += row.count();
+                }
+                if (province && rentDuration && isRnb && row.category() != null) {
+                    categories.merge(row.category(), row.count(), Long::sum);
+                }
+                if (category && rentDuration && isRnb && row.province() != null) {
+                    provinceCounts.merge(row.province(), row.count(), Long::sum);
+                }
+                if (category && province && isRnb) {
+                    rentDurations.merge(row.rentCategory(), row.count(), Long::sum);
+                }
+                if (category && province && rentDuration) {
+                    isRnbOptions.merge(row.isRnb(), row.count(), Long::sum);
+                }
+            }
+
+            ProductFacetResponse response = ProductFacetResponse.builder()
+                    .totalItems(totalItems)
+                    .categories(categories)
+                    .provinces(provinceCounts)
+                    .rentDurations(rentDurations)
+                    .isRnbOptions(isRnbOptions)
+                    .build();
+
+            return commonUtils.setResponse(ErrorMessageEnum.SUCCESS, response);
+        } catch (Exception ex) {
+            log.error("Error counting product facets: {}", ex.getMessage(), ex);
+            return commonUtils.setResponse(ErrorMessageEnum.FAILED, null);
+        }
+    }
+
+    private static ProductFilterRequest withoutFacets(ProductFilterRequest filterRequest) {
+        return filterRequest.toBuilder()
+                .categories(null)
+                .provinces(null)
+                .rentDurations(null)
+                .isRnbOptions(null)
+                .build();
+    }
+
+    // Selected values per facet; null means the facet is not filtered
+    private record FacetSelection(Collection<String> categories, Set<String> provinces,
+                                  Collection<Integer> rentDurations, Collection<Boolean> isRnbOptions) {
+
+        boolean matchesCategory(ProductFacetRow row) {
+            return CollectionUtils.isEmpty(categories) || categories.contains(row.category());
+        }
+
+        boolean matchesProvince(ProductFacetRow row) {
+            return provinces == null || provinces.contains(ProductLocalityIndex.normalize(row.province()));
+        }
+
+        boolean matchesRentDuration(ProductFacetRow row) {
+            return CollectionUtils.isEmpty(rentDurations) || rentDurations.contains(row.rentCategory());
+        }
+
+        boolean matchesIsRnb(ProductFacetRow row) {
+            return CollectionUtils.isEmpty(isRnbOptions) || isRnbOptions.contains(row.isRnb());
+        }
     }
 
     private PaginationResponse<ProductResponse> createPaginationResponse(
-            List<ProductEntity> products, int page, int size, int totalElements, int totalPages) {
+            List<ProductCardView> products,
+            int page, int size, int totalElements, int totalPages) {
 
         List<ProductResponse> content = products.stream()
-                .map(ProductHelper::convertToResponse)
+                .map(productMapper::toProductResponse)
                 .toList();
 
         return PaginationResponse.<ProductResponse>builder()
@@ -0,0 +1,97 @@
+package com.skripsi.siap_sewa.service;
+
+import com.skripsi.siap_sewa.cache.SingleFlight;
+import com.skripsi.siap_sewa.repository.ProductRepository;
+import com.skripsi.siap_sewa.utils.Constant;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Keeps a bounded, periodically refreshed pool of AVAILABLE product ids and
+ * draws random samples from it, so guest recommendations never scan the
+ * PRODUCT table on the request path. The pool itself is a block sample
+ * (TABLESAMPLE SYSTEM) sized from the planner's row estimate, so a refresh reads
+ * about the same number of pages however large the catalog grows.
+ * <p>
+ * The pool is filled at startup; while it is empty (no AVAILABLE products, or the
+ * load failed) requests reload it at most once per retry interval, sharing one
+ * query between concurrent callers.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductSamplingService {
+
+    // Rows sampled per pool slot, to make up for products that are not AVAILABLE
+    private static final int OVERSAMPLING = 4;
+
+    private final ProductRepository productRepository;
+
+    @Value("${pintu.sewa.recommendation.pool-size:2000}")
+    private int poolSize;
+
+    @Value("${pintu.sewa.recommendation.empty-retry-ms:10000}")
+    private long emptyRetryMillis;
+
+    private volatile String[] pool = new String[0];
+    private volatile long lastRefreshAt;
+
+    private final SingleFlight<String, String[]> emptyPoolRefreshes = new SingleFlight<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmPool() {
+        refreshPool();
+    }
+
+    @Scheduled(
+            initialDelayString = "${pintu.sewa.recommendation.refresh-interval-ms:300000}",
+            fixedDelayString = "${pintu.sewa.recommendation.refresh-interval-ms:300000}")
+    public void refreshPool() {
+        lastRefreshAt = System.currentTimeMillis();
+        try {
+            long rows = productRepository.estimateRowCount();
+            double percent = rows <= 0 ? 100 : Math.min(100, 100.0 * poolSize * OVERSAMPLING / rows);
+            List<String> ids = productRepository.findSampledIdsByStatus(Constant.PRODUCT_STATUS_AVAILABLE, percent, poolSize);
+            pool = ids.toArray(new String[0]);
+            log.info("Refreshed recommendation pool with {} products", pool.length);
+        } catch (Exception e) {
+            log.error("Failed to refresh recommendation pool: {}", e.getMessage(), e);
+        }
+    }
+
+    public List<String> sample(int size) {
+        String[] current = pool;
+        if (current.length == 0 && System.currentTimeMillis() - lastRefreshAt >= emptyRetryMillis) {
+            current = emptyPoolRefreshes.load("pool", () -> {
+                refreshPool();
+                return pool;
+            });
+        }
+
+        if (current.length <= size) {
+            return List.of(current);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Set<Integer> picked = new HashSet<>();
+        List<String> result = new ArrayList<>(size);
+        while (result.size() < size) {
+            int index = random.nextInt(current.length);
+            if (picked.add(index)) {
+                result.add(current[index]);
+            }
+        }
+        return result;
+    }
+}
@@ -1,17 +1,25 @@
 package com.skripsi.siap_sewa.service;
 
+import com.skripsi.siap_sewa.cache.ProductDetailCache;
+import com.skripsi.siap_sewa.cache.SingleFlight;
 import com.skripsi.siap_sewa.dto.ApiResponse;
 import com.skripsi.siap_sewa.dto.product.*;
 import com.skripsi.siap_sewa.entity.CustomerEntity;
 import com.skripsi.siap_sewa.entity.ProductEntity;
+import com.skripsi.siap_sewa.entity.ProductStatsEntity;
 import com.skripsi.siap_sewa.entity.ShopEntity;
 import com.skripsi.siap_sewa.enums.ErrorMessageEnum;
 import com.skripsi.siap_sewa.exception.DataNotFoundException;
+import com.skripsi.siap_sewa.index.ProductFilterIndex;
+import com.skripsi.siap_sewa.index.ProductLocalityIndex;
+import com.skripsi.siap_sewa.index.SearchIndex;
 import com.skripsi.siap_sewa.mapper.ProductMapper;
 import com.skripsi.siap_sewa.repository.CustomerRepository;
 import com.skripsi.siap_sewa.repository.ProductRepository;
 import com.skripsi.siap_sewa.repository.ShopRepository;
 import com.skripsi.siap_sewa.repository.TransactionRepository;
+import com.skripsi.siap_sewa.repository.projection.ProductCardView;
+import com.skripsi.siap_sewa.spesification.ProductSpecification;
 import com.skripsi.siap_sewa.utils.CommonUtils;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -29,7 +37,6 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -45,80 +52,83 @@ public class ProductService {
     private final CommonUtils commonUtils;
     private final ModelMapper modelMapper;
     private final CloudinaryService cloudinaryService;
-
-    private static final List<String> VALID_SORT_FIELDS = List.of("name", "dailyPrice", "weeklyPrice", "monthlyPrice", "rating");
+    private final ProductStatsService productStatsService;
+    private final ProductSamplingService productSamplingService;
+    private final ProductLocalityIndex productLocalityIndex;
+    private final ProductFilterIndex productFilterIndex;
+    private final SearchIndex searchIndex;
+    private final ProductDetailCache productDetailCache;
+
+    // Concurrent misses for the same id share one query; only used where the result is read, never modified
+    private final SingleFlight<String, ProductDetailResponse> productDetailLoads = new SingleFlight<>();
+    private final SingleFlight<String, ShopEntity> shopLookups = new SingleFlight<>();
+    private final SingleFlight<String, CustomerEntity> customerLookups = new SingleFlight<>();
+
+    private static final int MOST_RENTED_SIZE = 10;
+    private static final int RECOMMENDED_SIZE = 10;
+    private static final int NEAR_CUSTOMER_SIZE = 10;
+    private static final List<String> VALID_SORT_FIELDS = List.of("name", "dailyPrice", "weeklyPrice", "monthlyPrice", "lowestPrice", "rating");
 
     public ResponseEntity<ApiResponse> getProductByMostRented() {
-        log.info("Fetching 10 most rented products");
-        List<ProductEntity> products = productRepository.findAll();
-        if (products.isEmpty()) {
-            return commonUtils.setResponse(ErrorMessageEnum.DATA_NOT_FOUND, null);
+        log.info("Fetching {} most rented products", MOST_RENTED_SIZE);
+        List<String> rankedIds = productStatsService.findMostRented(MOST_RENTED_SIZE).stream()
+                .map(ProductStatsEntity::getProductId)
+                .toList();
+        List<ProductCardView> cards = new ArrayList<>(productRepository.findProductCardsInOrder(rankedIds));
+
+        // Products without a stats row have never been rented, so they only fill the tail.
+        if (cards.size() < MOST_RENTED_SIZE) {
+            cards.addAll(productRepository.findProductCards(
+                    Specification.not(ProductSpecification.idIn(rankedIds)), MOST_RENTED_SIZE - cards.size()));
         }
 
-        List<ProductResponse> response = products.stream()
-                .map(productMapper::toProductResponse)
-                .sorted(Comparator.comparingInt(ProductResponse::getRentedTimes).reversed())
-                .limit(10)
-                .toList();
+        if (cards.isEmpty()) {
+            return commonUtils.setResponse(ErrorMessageEnum.DATA_NOT_FOUND, null);
+        }
 
+        List<ProductResponse> response = cards.stream().map(productMapper::toProductResponse).toList();
         return commonUtils.setResponse(ErrorMessageEnum.SUCCESS, response);
     }
 
     public ResponseEntity<ApiResponse> getProductRecommendedForGuest() {
-        log.info("Fetching 10 recommended products for guest");
-        List<ProductEntity> products = productRepository.findAll();
-        if (products.isEmpty()) {
+        log.info("Fetching {} recommended products for guest", RECOMMENDED_SIZE);
+        List<String> sampledIds = productSamplingService.sample(RECOMMENDED_SIZE);
+        List<ProductCardView> cards = new ArrayList<>(productRepository.findProductCardsInOrder(sampledIds));
+        if (cards.isEmpty()) {
             return commonUtils.setResponse(ErrorMessageEnum.DATA_NOT_FOUND, null);
         }
 
-        Collections.shuffle(products);
-        List<ProductResponse> response = products.stream()
-                .limit(10)
-                .map(productMapper::toProductResponse)
-                .toList();
+        Collections.shuffle(cards);
+        List<ProductResponse> response = cards.stream().map(productMapper::toProductResponse).toList();
 
         return commonUtils.setResponse(ErrorMessageEnum.SUCCESS, response);
     }
 
     public ResponseEntity<ApiResponse> getProductNearCustomer(String customerId) {
         log.info("Fetching products near customer: {}", customerId);
-        CustomerEntity customer = findCustomerById(customerId);
+        CustomerEntity customer = customerLookups.load(customerId, () -> findCustomerById(customerId));
         String customerRegency = customer.getRegency();
 
-        List<ProductEntity> productsInSameRegency = new ArrayList<>();
-        try {
-            productsInSameRegency = shopRepository.findByRegencyIgnoreCase(customerRegency).stream()
-                    .flatMap(shop -> {
-                        try {
-                            return shop.getProducts().stream();
-                        } catch (Exception e) {
-                            log.error("Failed to get products from shop {}: {}", shop.getId(), e.getMessage());
-                            return Stream.empty();
-                        }
-                    })
-                    .toList();
-        } catch (Exception e) {
-            log.error("Error while fetching products in regency '{}': {}", customerRegency, e.getMessage(), e);
-        }
-
-        if (productsInSameRegency.isEmpty()) {
-            log.info("No products found in regency: {}", customerRegency);
+        List<String> nearbyIds = productLocalityIndex.findNear(customerRegency, customer.getProvince(), NEAR_CUSTOMER_SIZE);
+        List<ProductCardView> nearbyCards = productRepository.findProductCardsInOrder(nearbyIds);
+
+        if (nearbyCards.isEmpty()) {
+            log.info("No products found in regency: {} or province: {}", customerRegency, customer.getProvince());
             return commonUtils.setResponse(ErrorMessageEnum.DATA_NOT_FOUND, null);
         }
 
-//        Collections.shuffle(productsInSameRegency);
-        List<ProductResponse> response = productsInSameRegency.stream()
-                .limit(10)
-                .map(productMapper::toProductResponse)
-                .toList();
+        List<ProductResponse> response = nearbyCards.stream().map(productMapper::toProductResponse).toList();
 
         return commonUtils.setResponse(ErrorMessageEnum.SUCCESS, response);
     }
 
     public ResponseEntity<ApiResponse> getProductDetail(String id) {
         log.debug("Fetching product detail for ID: {}", id);
-        ProductEntity product = findProductById(id);
-        ProductDetailResponse response = productMapper.toProductDetailResponse(product);
+        ProductDetailResponse response = productDetailCache.get(
+                id,
+                () -> productDetailLoads.load(id, () -> productMapper.toProductDetailResponse(
+                        findProductById(id), productStatsService.findByProductId(id))),
+                () -> productRepository.findStockById(id));
         log.info("Successfully built response for product ID: {}", id);
         return commonUtils.setResponse(ErrorMessageEnum.SUCCESS, response);
     }
@@ -154,6 +164,10 @@ public class ProductService {
         }
 
         ProductEntity savedProduct = productRepository.save(newProduct);
+        productLocalityIndex.putProduct(savedProduct.getId(), shop.getId());
+        productFilterIndex.putProduct(savedProduct.getId(), savedProduct.getCategory(),
+                savedProduct.getRentCategory(), savedProduct.isRnb(), shop.getId());
+        searchIndex.putProduct(savedProduct.getId(), savedProduct.getName(), savedProduct.getCategory(), savedProduct.getImage());
         log.info("Successfully added new product with ID: {}", savedProduct.getId());
 
         AddProductResponse response = modelMapper.map(savedProduct, AddProductResponse.class);
@@ -214,6 +228,11 @@ public class ProductService {
         }
 
         ProductEntity updatedProduct = productRepository.save(product);
+        productLocalityIndex.putProduct(updatedProduct.getId(), shop.getId());
+        productFilterIndex.putProduct(updatedProduct.getId(), updatedProduct.getCategory(),
+                updatedProduct.getRentCategory(), updatedProduct.isRnb(), shop.getId());
+        searchIndex.putProduct(updatedProduct.getId(), updatedProduct.getName(), updatedProduct.getCategory(), updatedProduct.getImage());
+        productDetailCache.invalidate(updatedProduct.getId());
         log.info("Successfully updated product with ID: {}", id);
 
         EditProductResponse response = productMapper.toEditProductResponse(updatedProduct);
@@ -282,7 +301,12 @@ public class ProductService {
             }
         }
 
+        productStatsService.removeProducts(List.of(id));
         productRepository.delete(product);
+        productLocalityIndex.removeProduct(id);
+        productFilterIndex.removeProduct(id);
+        searchIndex.removeProduct(id);
+        productDetailCache.invalidate(id);
         log.info("Successfully deleted product with ID: {}", id);
 
         return commonUtils.setResponse(ErrorMessageEnum.SUCCESS, "Product deleted successfully");
@@ -292,22 +316,14 @@ public class ProductService {
     public ResponseEntity<ApiResponse> getProductByShopId(String shopId) {
         log.info("Fetching up to 5 products by shop ID: {}", shopId);
 
-        List<ProductEntity> products = productRepository.findByShopId(shopId);
+        List<ProductCardView> products = productRepository.findProductCardsByShopId(shopId, PageRequest.of(0, 5));
         if (products.isEmpty()) {
             log.info("No products found for shop ID: {}", shopId);
             return commonUtils.setResponse(ErrorMessageEnum.DATA_NOT_FOUND, null);
         }
 
         List<ProductResponse> response = products.stream()
-                .limit(5)
-                .map(product -> {
-                    ProductResponse productResponse = productMapper.toProductResponse(product);
-                    
-                    if (product.getImage() != null) {
-                        productResponse.setImage(product.getImage());
-                    }
-                    return productResponse;
-                })
+                .map(productMapper::toProductResponse)
                 .toList();
 
         log.info("Successfully fetched {} products for shop ID: {}", response.size(), shopId);
@@ -350,7 +366,12 @@ public class ProductService {
         }
 
         
+        productStatsService.removeProducts(productIds);
         productRepository.deleteAll(products);
+        productIds.forEach(productLocalityIndex::removeProduct);
+        productIds.forEach(productFilterIndex::removeProduct);
+        productIds.forEach(searchIndex::removeProduct);
+        productDetailCache.invalidateAll(productIds);
 
         log.info("Successfully deleted {} products and {} images for shop ID: {}",
                 products.size(), deletedImagesCount, shopId);
@@ -361,8 +382,8 @@ public class ProductService {
 
     public ResponseEntity<ApiResponse> getTopProductByShopId(String shopId) {
         log.info("Fetching top 10 products from shopId: {}", shopId);
-        findShopById(shopId);
-        List<ProductEntity> products = productRepository.findByShopId(shopId);
+        shopLookups.load(shopId, () -> findShopById(shopId));
+        List<ProductCardView> products = new ArrayList<>(productRepository.findAllProductCardsByShopId(shopId));
         if (products.isEmpty()) {
             return commonUtils.setResponse(ErrorMessageEnum.DATA_NOT_FOUND, null);
         }
@@ -385,6 +406,7 @@ public class ProductService {
         product.setStock(stockToSet);
         product.setLastUpdateAt(LocalDateTime.now());
         productRepository.save(product);
+        productDetailCache.invalidate(id);
 
         log.info("Successfully updated stock for product ID {} to {}", id, stockToSet);
         return commonUtils.setResponse(ErrorMessageEnum.SUCCESS, null);
@@ -392,12 +414,12 @@ public class ProductService {
 
     public ResponseEntity<ApiResponse> getProductsByShop(String shopId, ProductFilterDto filters) {
         log.debug("Fetching products for shop ID: {} with filters: {}", shopId, filters);
-        findShopById(shopId);
+        shopLookups.load(shopId, () -> findShopById(shopId));
 
         Pageable pageable = createPageable(filters);
         Specification<ProductEntity> spec = createSpecification(shopId, filters);
 
-        Page<ProductEntity> productsPage = productRepository.findAll(spec, pageable);
+        Page<ProductCardView> productsPage = productRepository.findProductCards(spec, pageable);
         List<ProductListResponse> productResponses = productsPage.getContent().stream()
                 .map(productMapper::toProductListResponse)
                 .toList();
@@ -428,16 +450,31 @@ public class ProductService {
     }
 
     private Pageable createPageable(ProductFilterDto filters) {
-        String sortBy = (filters.getSortBy() != null && VALID_SORT_FIELDS.contains(filters.getSortBy()))
+        String sortBy = resolveSortBy(filters);
+        if (ProductSpecification.isStatsSort(sortBy)) {
+            return PageRequest.of(filters.getPage(), 16);
+        }
+        return PageRequest.of(filters.getPage(), 16, Sort.by(resolveSortDirection(filters), sortBy));
+    }
+
+    private String resolveSortBy(ProductFilterDto filters) {
+        return (filters.getSortBy() != null && VALID_SORT_FIELDS.contains(filters.getSortBy()))
                 ? filters.getSortBy() : "name";
-        Sort.Direction direction = "desc".equalsIgnoreCase(filters.getSortDirection())
+    }
+
+    private Sort.Direction resolveSortDirection(ProductFilterDto filters) {
+        return "desc".equalsIgnoreCase(filters.getSortDirection())
                 ? Sort.Direction.DESC : Sort.Direction.ASC;
-        return PageRequest.of(filters.getPage(), 16, Sort.by(direction, sortBy));
     }
 
     private Specification<ProductEntity> createSpecification(String shopId, ProductFilterDto filters) {
         Specification<ProductEntity> spec = (root, query, cb) -> cb.equal(root.get("shop").get("id"), shopId);
 
+        String sortBy = resolveSortBy(filters);
+        if (ProductSpecification.isStatsSort(sortBy)) {
+            spec = spec.and(ProductSpecification.orderByStats(sortBy, resolveSortDirection(filters)));
+        }
+
         if (filters.getCategory() != null && !filters.getCategory().isEmpty()) {
             spec = spec.and((root, query, cb) -> cb.equal(root.get("category"), filters.getCategory()));
         }
@@ -0,0 +1,110 @@
+package com.skripsi.siap_sewa.service;
+
+import com.skripsi.siap_sewa.cache.ProductDetailCache;
+import com.skripsi.siap_sewa.entity.ProductEntity;
+import com.skripsi.siap_sewa.entity.ProductStatsEntity;
+import com.skripsi.siap_sewa.entity.ReviewEntity;
+import com.skripsi.siap_sewa.entity.ShopRatingStatsEntity;
+import com.skripsi.siap_sewa.entity.TransactionEntity;
+import com.skripsi.siap_sewa.helper.ProductHelper;
+import com.skripsi.siap_sewa.repository.ProductStatsRepository;
+import com.skripsi.siap_sewa.repository.ShopRatingStatsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the PRODUCT_STATS and SHOP_RATING_STATS read models so product cards,
+ * shop ratings and rating breakdowns never have to load review or transaction collections.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductStatsService {
+
+    private final ProductStatsRepository productStatsRepository;
+    private final ShopRatingStatsRepository shopRatingStatsRepository;
+    private final ProductDetailCache productDetailCache;
+
+    public Map<String, ProductStatsEntity> findByProductIds(Collection<String> productIds) {
+        if (productIds == null || productIds.isEmpty()) {
+            return Map.of();
+        }
+        return productStatsRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(ProductStatsEntity::getProductId, Function.identity()));
+    }
+
+    public ProductStatsEntity findByProductId(String productId) {
+        return productStatsRepository.findById(productId)
+                .orElseGet(() -> ProductStatsEntity.empty(productId));
+    }
+
+    public ShopRatingStatsEntity findByShopId(String shopId) {
+        return shopRatingStatsRepository.findById(shopId)
+                .orElseGet(() -> ShopRatingStatsEntity.empty(shopId));
+    }
+
+    public List<ProductStatsEntity> findMostRented(int limit) {
+        return productStatsRepository.findAllByOrderByRentedCountDescProductIdAsc(PageRequest.of(0, limit));
+    }
+
+    public void recordReviews(Collection<ReviewEntity> reviews) {
+        for (ReviewEntity review : reviews) {
+            if (review.getProduct() == null || review.getRating() == null) {
+                continue;
+            }
+            int star = star(review.getRating());
+            productStatsRepository.addReview(
+                    review.getProduct().getId(),
+                    review.getRating(),
+                    star,
+                    ProductHelper.MINIMUM_VOTES,
+                    ProductHelper.GLOBAL_AVERAGE_RATING);
+            if (review.getProduct().getShop() != null) {
+                shopRatingStatsRepository.addReview(review.getProduct().getShop().getId(), review.getRating(), star);
+            }
+            productDetailCache.invalidate(review.getProduct().getId());
+        }
+    }
+
+    /**
+     * Subtracts the reviews of products about to be deleted from their shops' rating
+     * stats. Must run before the delete, while their PRODUCT_STATS rows still exist.
+     */
+    public void removeProducts(Collection<String> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        int shops = shopRatingStatsRepository.removeProducts(productIds);
+        log.debug("Removed ratings of {} deleted products from {} shops", productIds.size(), shops);
+    }
+
+    // Histogram bucket of a rating: n.x counts as n stars, clamped to 1..5
+    private static int star(double rating) {
+        return (int) Math.min(5, Math.max(1, Math.floor(rating)));
+    }
+
+    /**
+     * Adds ({@code direction = 1}) or removes ({@code direction = -1}) the given
+     * transactions from the rented/bought counters of their products.
+     */
+    public void recordTransactions(Collection<TransactionEntity> transactions, int direction) {
+        for (TransactionEntity transaction : transactions) {
+            int rentedDelta = transaction.isSelled() ? 0 : direction;
+            int boughtDelta = transaction.isSelled() ? direction : 0;
+
+            for (ProductEntity product : transaction.getProducts()) {
+                log.debug("Updating stats for product {}: rented {}, bought {}", product.getId(), rentedDelta, boughtDelta);
+                productStatsRepository.addTransactions(product.getId(), rentedDelta, boughtDelta);
+                productDetailCache.invalidate(product.getId());
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.skripsi.siap_sewa.service;
+
+import com.skripsi.siap_sewa.repository.ReviewRepository;
+import com.skripsi.siap_sewa.storage.ImageStorage;
+import com.skripsi.siap_sewa.utils.Constant;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Uploads review images off the request path. Reviews are saved with a pending image;
+ * once the saving transaction commits, the upload runs on the bounded review image
+ * pool, is retried with a growing delay, and the reviews are patched with the URL
+ * (or marked failed when every attempt fails or the pool's queue is full).
+ * <p>
+ * The image bytes only live in memory, so a review still pending after a restart can
+ * never be uploaded; a periodic sweep marks pending reviews older than the stale bound
+ * failed unless their upload is still running here.
+ */
+@Slf4j
+@Service
+public class ReviewImageService {
+
+    private static final String FOLDER = "review_images";
+
+    private final ImageStorage imageStorage;
+    private final ReviewRepository reviewRepository;
+    private final Executor executor;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    private final long staleAfterMillis;
+
+    // Reviews whose upload is queued or running in this instance
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    public ReviewImageService(ImageStorage imageStorage,
+                              ReviewRepository reviewRepository,
+                              @Qualifier("reviewImageExecutor") Executor executor,
+                              @Value("${pintu.sewa.review-image.max-attempts:3}") int maxAttempts,
+                              @Value("${pintu.sewa.review-image.retry-backoff-ms:2000}") long retryBackoffMillis,
+                              @Value("${pintu.sewa.review-image.stale-after-ms:900000}") long staleAfterMillis) {
+        this.imageStorage = imageStorage;
+        this.reviewRepository = reviewRepository;
+        this.executor = executor;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.staleAfterMillis = staleAfterMillis;
+    }
+
+    /**
+     * Queues the upload of one image shared by {@code reviewIds}. The bytes must already
+     * be copied out of the request, which is gone by the time the upload runs.
+     */
+    public void uploadAfterCommit(List<String> reviewIds, byte[] content, String contentType) {
+        Runnable submit = () -> submit(reviewIds, content, contentType);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit.run();
+                }
+            });
+        } else {
+            submit.run();
+        }
+    }
+
+    /**
+     * Marks reviews failed whose image is still pending after the stale bound and whose
+     * upload is not running here, e.g. because the instance that had the bytes restarted.
+     */
+    @Scheduled(fixedDelayString = "${pintu.sewa.review-image.sweep-interval-ms:300000}")
+    public int failStalePending() {
+        LocalDateTime createdBefore = LocalDateTime.now().minus(Duration.ofMillis(staleAfterMillis));
+        List<String> stale = reviewRepository.findIdsByImageStatusCreatedBefore(Constant.REVIEW_IMAGE_PENDING, createdBefore)
+                .stream()
+                .filter(id -> !inFlight.contains(id))
+                .toList();
+        if (stale.isEmpty()) {
+            return 0;
+        }
+        reviewRepository.updateImage(stale, null, Constant.REVIEW_IMAGE_FAILED);
+        log.warn("Marked {} stale pending review images failed", stale.size());
+        return stale.size();
+    }
+
+    private void submit(List<String> reviewIds, byte[] content, String contentType) {
+        inFlight.addAll(reviewIds);
+        try {
+            executor.execute(() -> {
+                try {
+                    upload(reviewIds, content, contentType);
+                } finally {
+                    inFlight.removeAll(reviewIds);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.removeAll(reviewIds);
+            reviewRepository.updateImage(reviewIds, null, Constant.REVIEW_IMAGE_FAILED);
+            log.error("Review image queue is full, image for reviews {} marked failed", reviewIds);
+        }
+    }
+
+    private void upload(List<String> reviewIds, byte[] content, String contentType) {
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                String imageUrl = imageStorage.store(content, contentType, FOLDER);
+                reviewRepository.updateImage(reviewIds, imageUrl, Constant.REVIEW_IMAGE_UPLOADED);
+                log.info("Uploaded review image for reviews {} on attempt {}", reviewIds, attempt);
+                return;
+            } catch (Exception e) {
+                log.warn("Review image upload attempt {}/{} failed for reviews {}: {}",
+                        attempt, maxAttempts, reviewIds, e.getMessage());
+            }
+
+            if (attempt < maxAttempts) {
+                try {
+                    Thread.sleep(retryBackoffMillis * attempt);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+
+        reviewRepository.updateImage(reviewIds, null, Constant.REVIEW_IMAGE_FAILED);
+        log.error("Giving up on review image for reviews {}", reviewIds);
+    }
+}
@@ -1,21 +1,29 @@
 package com.skripsi.siap_sewa.service;
 
 import com.skripsi.siap_sewa.dto.ApiResponse;
+import com.skripsi.siap_sewa.dto.product.CursorPaginationResponse;
 import com.skripsi.siap_sewa.dto.product.PaginationResponse;
 import com.skripsi.siap_sewa.dto.review.AddReviewRequest;
 import com.skripsi.siap_sewa.dto.review.ReviewRequest;
 import com.skripsi.siap_sewa.dto.review.ProductReviewResponse;
+import com.skripsi.siap_sewa.dto.review.RatingBreakdownResponse;
 import com.skripsi.siap_sewa.dto.review.ShopReviewResponse;
 import com.skripsi.siap_sewa.entity.CustomerEntity;
 import com.skripsi.siap_sewa.entity.ProductEntity;
+import com.skripsi.siap_sewa.entity.ProductStatsEntity;
 import com.skripsi.siap_sewa.entity.ReviewEntity;
+import com.skripsi.siap_sewa.entity.ShopRatingStatsEntity;
 import com.skripsi.siap_sewa.enums.ErrorMessageEnum;
+import com.skripsi.siap_sewa.enums.ReviewTopicEnum;
 import com.skripsi.siap_sewa.exception.DataNotFoundException;
 import com.skripsi.siap_sewa.repository.CustomerRepository;
 import com.skripsi.siap_sewa.repository.ProductRepository;
 import com.skripsi.siap_sewa.repository.ReviewRepository;
 import com.skripsi.siap_sewa.repository.ShopRepository;
+import com.skripsi.siap_sewa.repository.projection.ReviewListView;
+import com.skripsi.siap_sewa.spesification.ReviewCursor;
 import com.skripsi.siap_sewa.utils.CommonUtils;
+import com.skripsi.siap_sewa.utils.Constant;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -24,14 +32,18 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 @Slf4j
 @Service
@@ -44,6 +56,8 @@ public class ReviewService {
     private final CommonUtils commonUtils;
     private final CustomerRepository customerRepository;
     private final CloudinaryService cloudinaryService;
+    private final ProductStatsService productStatsService;
+    private final ReviewImageService reviewImageService;
 
     public ResponseEntity<ApiResponse> getReviewsByProductId(String productId, ReviewRequest request) {
         try {
@@ -53,15 +67,35 @@ public class ReviewService {
                 return commonUtils.setResponse(ErrorMessageEnum.PRODUCT_NOT_FOUND, null);
             }
 
+            List<Integer> topicMasks = topicMasks(request.getReviewTopics());
+            if (topicMasks != null && topicMasks.isEmpty()) {
+                log.info("No known review topics requested for product ID: {}", productId);
+                return commonUtils.setResponse(ErrorMessageEnum.NO_REVIEWS_FOUND, null);
+            }
+
+            if (request.isCursorMode()) {
+                ReviewCursor before = reviewCursor(request);
+                log.debug("Fetching reviews from repository after cursor");
+                List<ReviewListView> rows = reviewRepository.findByProductIdBefore(
+                        productId,
+                        request.getHasMedia(),
+                        request.getRating(),
+                        topicMasks,
+                        before.createdAt(),
+                        before.id(),
+                        PageRequest.of(0, request.getSize() + 1));
+                return createCursorResponse(rows, request.getSize(), this::mapToProductReviewResponse);
+            }
+
             Sort sort = Sort.by(request.getSortDirection(), request.getSortBy());
             Pageable pageable = PageRequest.of(request.getPage(), request.getSize(), sort);
 
             log.debug("Fetching reviews from repository with filters");
-            Page<ReviewEntity> reviewsPage = reviewRepository.findByProductIdWithFilters(
+            Page<ReviewListView> reviewsPage = reviewRepository.findByProductIdWithFilters(
                     productId,
                     request.getHasMedia(),
                     request.getRating(),
-                    request.getReviewTopics(),
+                    topicMasks,
                     pageable);
 
             if (reviewsPage.isEmpty()) {
@@ -85,6 +119,9 @@ public class ReviewService {
             log.info("Successfully retrieved {} reviews for product ID: {}", reviewResponses.size(), productId);
             return commonUtils.setResponse(ErrorMessageEnum.SUCCESS, paginationResponse);
 
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid review request for product ID: {} - {}", productId, e.getMessage());
+            return commonUtils.setResponse(ErrorMessageEnum.BAD_REQUEST, e.getMessage());
         } catch (Exception e) {
             log.error("Error processing reviews for product ID: {} - {}", productId, e.getMessage(), e);
             return commonUtils.setResponse(ErrorMessageEnum.INTERNAL_SERVER_ERROR, null);
@@ -99,15 +136,35 @@ public class ReviewService {
                 return commonUtils.setResponse(ErrorMessageEnum.SHOP_NOT_FOUND, null);
             }
 
+            List<Integer> topicMasks = topicMasks(request.getReviewTopics());
+            if (topicMasks != null && topicMasks.isEmpty()) {
+                log.info("No known review topics requested for shop ID: {}", shopId);
+                return commonUtils.setResponse(ErrorMessageEnum.NO_REVIEWS_FOUND, null);
+            }
+
+            if (request.isCursorMode()) {
+                ReviewCursor before = reviewCursor(request);
+                log.debug("Fetching shop reviews from repository after cursor");
+                List<ReviewListView> rows = reviewRepository.findByShopIdBefore(
+                        shopId,
+                        request.getHasMedia(),
+                        request.getRating(),
+                        topicMasks,
+                        before.createdAt(),
+                        before.id(),
+                        PageRequest.of(0, request.getSize() + 1));
+                return createCursorResponse(rows, request.getSize(), this::mapToShopReviewResponse);
+            }
+
             Sort sort = Sort.by(request.getSortDirection(), request.getSortBy());
             Pageable pageable = PageRequest.of(request.getPage(), request.getSize(), sort);
 
             log.debug("Fetching shop reviews from repository with filters");
-            Page<ReviewEntity> reviewsPage = reviewRepository.findByProduct_Shop_IdWithFilters(
+            Page<ReviewListView> reviewsPage = reviewRepository.findByShopIdWithFilters(
                     shopId,
                     request.getHasMedia(),
                     request.getRating(),
-                    request.getReviewTopics(),
+                    topicMasks,
                     pageable);
 
             if (reviewsPage.isEmpty()) {
@@ -131,44 +188,127 @@ public class ReviewService {
             log.info("Successfully retrieved {} reviews for shop ID: {}", reviewResponses.size(), shopId);
             return commonUtils.setResponse(ErrorMessageEnum.SUCCESS, paginationResponse);
 
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid review request for shop ID: {} - {}", shopId, e.getMessage());
+            return commonUtils.setResponse(ErrorMessageEnum.BAD_REQUEST, e.getMessage());
         } catch (Exception e) {
             log.error("Error processing reviews for shop ID: {} - {}", shopId, e.getMessage(), e);
             return commonUtils.setResponse(ErrorMessageEnum.INTERNAL_SERVER_ERROR, null);
         }
     }
 
-    private ProductReviewResponse mapToProductReviewResponse(ReviewEntity review) {
-        log.trace("Mapping review ID {} to product review response", review.getId());
+    // Cursor mode always lists newest first, seeking past the (createdAt, id) of the previous page
+    private ReviewCursor reviewCursor(ReviewRequest request) {
+        return StringUtils.hasText(request.getCursor())
+                ? ReviewCursor.decode(request.getCursor())
+                : ReviewCursor.START;
+    }
+
+    /**
+     * Cursor page from {@code size + 1} fetched rows: the extra row only tells whether
+     * there is a next page. No count query.
+     */
+    private <T> ResponseEntity<ApiResponse> createCursorResponse(List<ReviewListView> rows, int size,
+                                                                 Function<ReviewListView, T> mapper) {
+        boolean hasNext = rows.size() > size;
+        List<ReviewListView> reviews = hasNext ? rows.subList(0, size) : rows;
+
+        String nextCursor = null;
+        if (hasNext) {
+            ReviewListView last = reviews.get(reviews.size() - 1);
+            nextCursor = new ReviewCursor(last.createdAt(), last.id()).encode();
+        }
+
+        CursorPaginationResponse<T> response = CursorPaginationResponse.<T>builder()
+                .content(reviews.stream().map(mapper).toList())
+                .pageSize(size)
+                .nextCursor(nextCursor)
+                .build();
+        return commonUtils.setResponse(ErrorMessageEnum.SUCCESS, response);
+    }
+
+    public ResponseEntity<ApiResponse> getRatingBreakdownByProductId(String productId) {
+        if (!productRepository.existsById(productId)) {
+            log.warn("Product not found with ID: {}", productId);
+            return commonUtils.setResponse(ErrorMessageEnum.PRODUCT_NOT_FOUND, null);
+        }
+
+        ProductStatsEntity stats = productStatsService.findByProductId(productId);
+        RatingBreakdownResponse response = toRatingBreakdown(stats.getReviewCount(), stats.getRatingSum(),
+                stats.getOneStarCount(), stats.getTwoStarCount(), stats.getThreeStarCount(),
+                stats.getFourStarCount(), stats.getFiveStarCount());
+        return commonUtils.setResponse(ErrorMessageEnum.SUCCESS, response);
+    }
+
+    public ResponseEntity<ApiResponse> getRatingBreakdownByShopId(String shopId) {
+        if (!shopRepository.existsById(shopId)) {
+            log.warn("Shop not found with ID: {}", shopId);
+            return commonUtils.setResponse(ErrorMessageEnum.SHOP_NOT_FOUND, null);
+        }
+
+        ShopRatingStatsEntity stats = productStatsService.findByShopId(shopId);
+        RatingBreakdownResponse response = toRatingBreakdown(stats.getReviewCount(), stats.getRatingSum(),
+                stats.getOneStarCount(), stats.getTwoStarCount(), stats.getThreeStarCount(),
+                stats.getFourStarCount(), stats.getFiveStarCount());
+        return commonUtils.setResponse(ErrorMessageEnum.SUCCESS, response);
+    }
+
+    private RatingBreakdownResponse toRatingBreakdown(int reviewCount, double ratingSum,
+                                                      int one, int two, int three, int four, int five) {
+        Map<Integer, Integer> ratingCounts = new LinkedHashMap<>();
+        ratingCounts.put(5, five);
+        ratingCounts.put(4, four);
+        ratingCounts.put(3, three);
+        ratingCounts.put(2, two);
+        ratingCounts.put(1, one);
+
+        return RatingBreakdownResponse.builder()
+                .reviewCount(reviewCount)
+                .averageRating(reviewCount == 0 ? 0.0 : Math.round(ratingSum / reviewCount * 10) / 10.0)
+                .ratingCounts(ratingCounts)
+                .build();
+    }
+
+    // Stored topic masks matching any requested topic; null when not filtering by topic
+    private List<Integer> topicMasks(List<String> reviewTopics) {
+        if (reviewTopics == null || reviewTopics.isEmpty()) {
+            return null;
+        }
+        return ReviewTopicEnum.masksMatching(ReviewTopicEnum.maskOf(reviewTopics));
+    }
+
+    private ProductReviewResponse mapToProductReviewResponse(ReviewListView review) {
+        log.trace("Mapping review ID {} to product review response", review.id());
 
         return ProductReviewResponse.builder()
-                .username(getCustomerUsername(review.getCustomer()))
-                .userProfile(review.getCustomer().getImage())
-                .comment(review.getComment())
-                .images(processImageString(review.getImage()))
-                .rating(review.getRating())
-                .createdAt(CommonUtils.getRelativeTimeFromNow(review.getCreatedAt()))
+                .username(getCustomerUsername(review))
+                .userProfile(review.userImage())
+                .comment(review.comment())
+                .images(processImageString(review.image()))
+                .rating(review.rating())
+                .createdAt(CommonUtils.getRelativeTimeFromNow(review.createdAt()))
                 .build();
     }
 
-    private ShopReviewResponse mapToShopReviewResponse(ReviewEntity review) {
-        log.trace("Mapping review ID {} to shop review response", review.getId());
+    private ShopReviewResponse mapToShopReviewResponse(ReviewListView review) {
+        log.trace("Mapping review ID {} to shop review response", review.id());
 
-        ProductEntity product = review.getProduct();
+        List<String> productImages = processImageString(review.productImage());
 
         return ShopReviewResponse.builder()
-                .username(getCustomerUsername(review.getCustomer()))
-                .userProfile(review.getCustomer().getImage())
-                .comment(review.getComment())
-                .images(processImageString(review.getImage()))
-                .rating(review.getRating())
-                .createdAt(CommonUtils.getRelativeTimeFromNow(review.getCreatedAt()))
-                .productImage(product != null ? processImageString(product.getImage()).get(0) : null)
-                .productName(product != null ? product.getName() : "Unknown Product")
+                .username(getCustomerUsername(review))
+                .userProfile(review.userImage())
+                .comment(review.comment())
+                .images(processImageString(review.image()))
+                .rating(review.rating())
+                .createdAt(CommonUtils.getRelativeTimeFromNow(review.createdAt()))
+                .productImage(productImages.isEmpty() ? null : productImages.get(0))
+                .productName(review.productName() != null ? review.productName() : "Unknown Product")
                 .build();
     }
 
-    private String getCustomerUsername(CustomerEntity customer) {
-        return customer != null ? customer.getUsername() : "Unknown User";
+    private String getCustomerUsername(ReviewListView review) {
+        return review.username() != null ? review.username() : "Unknown User";
     }
 
     private List<String> processImageString(String imageString) {
@@ -181,6 +321,7 @@ public class ReviewService {
                 .toList();
     }
 
+    @Transactional
     public ResponseEntity<ApiResponse> addReview(AddReviewRequest request) throws IOException {
 
         CustomerEntity customer = customerRepository.findById(request.getCustomerId())
@@ -191,21 +332,28 @@ public class ReviewService {
             throw new DataNotFoundException("One or more products not found");
         }
 
-        String imageUrl = null;
-        if (request.getImage() != null && !request.getImage().isEmpty()) {
-            imageUrl = cloudinaryService.uploadImage(request.getImage());
+        // The upload itself runs after commit (ReviewImageService); only validate and copy the bytes here
+        MultipartFile image = request.getImage();
+        boolean hasImage = image != null && !image.isEmpty();
+        byte[] imageContent = null;
+        if (hasImage) {
+            cloudinaryService.validateImage(image);
+            imageContent = image.getBytes();
         }
 
         List<ReviewEntity> newReviews = new ArrayList<>();
-        final String finalImageUrl = imageUrl;
+        final String imageStatus = hasImage ? Constant.REVIEW_IMAGE_PENDING : null;
+        final int topicMask = ReviewTopicEnum.extract(request.getComment());
 
         products.forEach(product -> {
             ReviewEntity newReview = ReviewEntity.builder()
                     .customer(customer)
                     .product(product)
                     .comment(request.getComment())
-                    .image(finalImageUrl)
+                    .imageStatus(imageStatus)
                     .rating(request.getRating())
+                    .topicMask(topicMask)
+                    .shopId(product.getShop() != null ? product.getShop().getId() : null)
                     .createdAt(LocalDateTime.now())
                     .lastUpdateAt(LocalDateTime.now())
                     .build();
@@ -213,6 +361,11 @@ public class ReviewService {
         });
         
         reviewRepository.saveAll(newReviews);
+        productStatsService.recordReviews(newReviews);
+        if (hasImage) {
+            reviewImageService.uploadAfterCommit(
+                    newReviews.stream().map(ReviewEntity::getId).toList(), imageContent, image.getContentType());
+        }
 
         return commonUtils.setResponse(ErrorMessageEnum.SUCCESS, null);
     }
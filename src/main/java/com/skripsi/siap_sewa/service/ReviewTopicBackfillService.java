@@ -0,0 +1,91 @@
+package com.skripsi.siap_sewa.service;
+
+import com.skripsi.siap_sewa.enums.ReviewTopicEnum;
+import com.skripsi.siap_sewa.repository.ReviewRepository;
+import com.skripsi.siap_sewa.repository.projection.ReviewCommentView;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+/**
+ * Extracts the topic mask of reviews written before topics were stored (topic_mask IS NULL).
+ * Comments are read in id order, one chunk at a time, and the chunks are tagged in
+ * parallel with one UPDATE per distinct mask. Runs once after startup and does nothing
+ * when every review is already tagged. The run and its chunks use the dedicated
+ * backfill pool, so the shared task executor is never held up by it.
+ */
+@Slf4j
+@Service
+public class ReviewTopicBackfillService {
+
+    private final ReviewRepository reviewRepository;
+    private final Executor executor;
+
+    @Value("${pintu.sewa.review-topics.backfill.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${pintu.sewa.review-topics.backfill.parallelism:4}")
+    private int parallelism;
+
+    public ReviewTopicBackfillService(ReviewRepository reviewRepository,
+                                      @Qualifier("reviewTopicBackfillExecutor") Executor executor) {
+        this.reviewRepository = reviewRepository;
+        this.executor = executor;
+    }
+
+    @Async("reviewTopicBackfillExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        try {
+            String afterId = "";
+            int tagged = 0;
+            boolean more = true;
+            while (more) {
+                // One wave of chunks at a time, so at most parallelism chunks are held in memory
+                List<CompletableFuture<Integer>> wave = new ArrayList<>(parallelism);
+                while (wave.size() < parallelism) {
+                    List<ReviewCommentView> chunk = reviewRepository.findUntaggedComments(afterId, PageRequest.of(0, chunkSize));
+                    if (chunk.isEmpty()) {
+                        more = false;
+                        break;
+                    }
+                    afterId = chunk.get(chunk.size() - 1).getId();
+                    wave.add(CompletableFuture.supplyAsync(() -> tag(chunk), executor));
+                }
+                for (CompletableFuture<Integer> chunk : wave) {
+                    tagged += chunk.join();
+                }
+            }
+            if (tagged > 0) {
+                log.info("Backfilled review topics for {} reviews", tagged);
+            }
+        } catch (Exception e) {
+            log.error("Failed to backfill review topics: {}", e.getMessage(), e);
+        }
+    }
+
+    private int tag(List<ReviewCommentView> chunk) {
+        Map<Integer, List<String>> idsByMask = chunk.stream()
+                .collect(Collectors.groupingBy(
+                        review -> ReviewTopicEnum.extract(review.getComment()),
+                        Collectors.mapping(ReviewCommentView::getId, Collectors.toList())));
+
+        int updated = 0;
+        for (Map.Entry<Integer, List<String>> entry : idsByMask.entrySet()) {
+            updated += reviewRepository.updateTopicMask(entry.getValue(), entry.getKey());
+        }
+        return updated;
+    }
+}
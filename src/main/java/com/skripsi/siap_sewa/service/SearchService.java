@@ -1,16 +1,19 @@
 package com.skripsi.siap_sewa.service;
 
+import com.skripsi.siap_sewa.cache.KeywordFrequencySketch;
+import com.skripsi.siap_sewa.cache.SearchResultCache;
 import com.skripsi.siap_sewa.dto.ApiResponse;
 import com.skripsi.siap_sewa.dto.SearchResponse;
-import com.skripsi.siap_sewa.entity.ProductEntity;
-import com.skripsi.siap_sewa.entity.ShopEntity;
+import com.skripsi.siap_sewa.dto.TypeaheadResponse;
 import com.skripsi.siap_sewa.enums.ErrorMessageEnum;
-import com.skripsi.siap_sewa.repository.ProductRepository;
-import com.skripsi.siap_sewa.repository.ShopRepository;
+import com.skripsi.siap_sewa.index.SearchIndex;
+import com.skripsi.siap_sewa.index.SearchText;
 import com.skripsi.siap_sewa.utils.CommonUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -20,25 +23,35 @@ import java.util.List;
 @RequiredArgsConstructor
 public class SearchService {
 
-    private final ProductRepository productRepository;
-    private final ShopRepository shopRepository;
     private final CommonUtils commonUtils;
+    private final SearchIndex searchIndex;
+    private final SearchResultCache searchResultCache;
+    private final KeywordFrequencySketch keywordSketch;
+
+    private static final int RESULT_SIZE = 3;
+    private static final int MAX_TYPEAHEAD_SIZE = 10;
+    private static final int PREWARM_SIZE = 20;
+    private static final int MAX_TOP_KEYWORDS = 50;
+
+    @Value("${pintu.sewa.search.prewarm-interval-ms:20000}")
+    private long prewarmIntervalMillis;
 
     public ResponseEntity<ApiResponse> searchShopAndProduct(String keyword) {
         try {
             log.info("Searching for shops and products with keyword: {}", keyword);
 
-            List<ProductEntity> products = productRepository.searchProducts(keyword);
-            List<ShopEntity> shops = shopRepository.searchShops(keyword);
-
-            if (products.isEmpty() && shops.isEmpty()) {
-                log.info("No exact matches found, searching for similar items");
-
-                products = productRepository.findSimilarProductsByCategory(keyword);
-                shops = shopRepository.findSimilarShopsByName(keyword);
+            String normalizedKeyword = SearchText.normalize(keyword);
+            if (normalizedKeyword == null) {
+                return commonUtils.setResponse(ErrorMessageEnum.SUCCESS, mapToResponse(List.of(), List.of()));
             }
+            keywordSketch.increment(normalizedKeyword);
 
-            SearchResponse response = mapToResponse(products, shops);
+            long indexVersion = searchIndex.version();
+            SearchResponse response = searchResultCache.get(normalizedKeyword, indexVersion);
+            if (response == null) {
+                response = search(normalizedKeyword);
+                searchResultCache.put(normalizedKeyword, indexVersion, response);
+            }
 
             log.info("Search completed successfully for keyword: {}", keyword);
             return commonUtils.setResponse(ErrorMessageEnum.SUCCESS, response);
@@ -49,22 +62,75 @@ public class SearchService {
         }
     }
 
-    private SearchResponse mapToResponse(List<ProductEntity> products, List<ShopEntity> shops) {
+    /**
+     * Keeps results for the hottest keywords in the cache so their first request after
+     * an expiry or catalog change does not pay for the search. Entries that would expire
+     * before the next run are refreshed now, so a hot keyword never drops out between runs.
+     */
+    @Scheduled(
+            initialDelayString = "${pintu.sewa.search.prewarm-interval-ms:20000}",
+            fixedDelayString = "${pintu.sewa.search.prewarm-interval-ms:20000}")
+    public void prewarmHotKeywords() {
+        long indexVersion = searchIndex.version();
+        for (KeywordFrequencySketch.KeywordCount hot : keywordSketch.top(PREWARM_SIZE)) {
+            if (!searchResultCache.freshFor(hot.keyword(), indexVersion, prewarmIntervalMillis)) {
+                searchResultCache.put(hot.keyword(), indexVersion, search(hot.keyword()));
+            }
+        }
+    }
+
+    public ResponseEntity<ApiResponse> getTopKeywords(int limit) {
+        int size = Math.min(Math.max(limit, 1), MAX_TOP_KEYWORDS);
+        return commonUtils.setResponse(ErrorMessageEnum.SUCCESS, keywordSketch.top(size));
+    }
+
+    // Exact and misspelled matches are ranked together by the index
+    private SearchResponse search(String keyword) {
+        List<SearchIndex.ProductDocument> products = searchIndex.searchProducts(keyword, RESULT_SIZE);
+        List<SearchIndex.ShopDocument> shops = searchIndex.searchShops(keyword, RESULT_SIZE);
+        return mapToResponse(products, shops);
+    }
+
+    public ResponseEntity<ApiResponse> typeahead(String prefix, int limit) {
+        int size = Math.min(Math.max(limit, 1), MAX_TYPEAHEAD_SIZE);
+
+        List<TypeaheadResponse.Suggestion> products = searchIndex.completeProducts(prefix, size).stream()
+                .map(product -> TypeaheadResponse.Suggestion.builder()
+                        .id(product.id())
+                        .name(product.name())
+                        .image(product.image())
+                        .build())
+                .toList();
+
+        List<TypeaheadResponse.Suggestion> shops = searchIndex.completeShops(prefix, size).stream()
+                .map(shop -> TypeaheadResponse.Suggestion.builder()
+                        .id(shop.id())
+                        .name(shop.name())
+                        .image(shop.image())
+                        .build())
+                .toList();
+
+        TypeaheadResponse response = TypeaheadResponse.builder()
+                .products(products)
+                .shops(shops)
+                .build();
+        return commonUtils.setResponse(ErrorMessageEnum.SUCCESS, response);
+    }
+
+    private SearchResponse mapToResponse(List<SearchIndex.ProductDocument> products, List<SearchIndex.ShopDocument> shops) {
         List<SearchResponse.ProductItem> productItems = products.stream()
-                .limit(3)
                 .map(product -> SearchResponse.ProductItem.builder()
-                        .id(product.getId())
-                        .name(product.getName())
-                        .category(product.getCategory())
+                        .id(product.id())
+                        .name(product.name())
+                        .category(product.category())
                         .build())
                 .toList();
 
         List<SearchResponse.ShopItem> shopItems = shops.stream()
-                .limit(3)
                 .map(shop -> SearchResponse.ShopItem.builder()
-                        .id(shop.getId())
-                        .name(shop.getName())
-                        .image(shop.getImage())
+                        .id(shop.id())
+                        .name(shop.name())
+                        .image(shop.image())
                         .build())
                 .toList();
 
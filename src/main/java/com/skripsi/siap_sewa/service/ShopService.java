@@ -1,6 +1,7 @@
 package com.skripsi.siap_sewa.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skripsi.siap_sewa.cache.SingleFlight;
 import com.skripsi.siap_sewa.dto.ApiResponse;
 import com.skripsi.siap_sewa.dto.shop.*;
 import com.skripsi.siap_sewa.dto.shop.dashboard.TransactionResponseShopDashboard;
@@ -8,6 +9,9 @@ import com.skripsi.siap_sewa.dto.shop.dashboard.WalletReportResponse;
 import com.skripsi.siap_sewa.entity.*;
 import com.skripsi.siap_sewa.enums.ErrorMessageEnum;
 import com.skripsi.siap_sewa.exception.DataNotFoundException;
+import com.skripsi.siap_sewa.index.ProductFilterIndex;
+import com.skripsi.siap_sewa.index.ProductLocalityIndex;
+import com.skripsi.siap_sewa.index.SearchIndex;
 import com.skripsi.siap_sewa.repository.*;
 import com.skripsi.siap_sewa.utils.CommonUtils;
 import com.skripsi.siap_sewa.helper.ProductHelper;
@@ -26,7 +30,6 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -39,12 +42,18 @@ public class ShopService {
     private final CustomerRepository customerRepository;
     private final ProductRepository productRepository;
     private final TransactionRepository transactionRepository;
-    private final ReviewRepository reviewRepository;
     private final EmailService emailService;
     private final CommonUtils commonUtils;
     private final ModelMapper modelMapper;
     private final WalletReportRepository walletReportRepository;
     private final CloudinaryService cloudinaryService;
+    private final ProductLocalityIndex productLocalityIndex;
+    private final ProductFilterIndex productFilterIndex;
+    private final SearchIndex searchIndex;
+    private final ProductStatsService productStatsService;
+
+    // Shared by concurrent requests for the same product page
+    private final SingleFlight<String, ShopByProductResponse> shopByProductLoads = new SingleFlight<>();
 
     public ResponseEntity<ApiResponse> createShop(CreateShopRequest request) {
         
@@ -110,6 +119,9 @@ public class ShopService {
         newShop.setLastUpdateAt(LocalDateTime.now());
         
         shopRepository.save(newShop);
+        productLocalityIndex.updateShop(newShop.getId(), newShop.getRegency(), newShop.getProvince());
+        productFilterIndex.updateShop(newShop.getId(), newShop.getProvince());
+        searchIndex.putShop(newShop.getId(), newShop.getName(), newShop.getImage());
 
         CreateShopResponse response = objectMapper.convertValue(newShop, CreateShopResponse.class);
         response.setId(newShop.getId());
@@ -153,11 +165,8 @@ public class ShopService {
 
             ShopDetailResponse response = modelMapper.map(shop, ShopDetailResponse.class);
 
-            List<ReviewEntity> reviews = shop.getProducts().stream()
-                    .flatMap(product -> product.getReviews().stream())
-                    .collect(Collectors.toList());
-            
-            Double rating = ProductHelper.calculateWeightedRating(reviews);
+            ShopRatingStatsEntity ratingStats = productStatsService.findByShopId(shopId);
+            Double rating = ProductHelper.calculateWeightedRating(ratingStats.getReviewCount(), ratingStats.getRatingSum());
             response.setRating(rating);
 
             return commonUtils.setResponse(ErrorMessageEnum.SUCCESS, response);
@@ -224,6 +233,9 @@ public class ShopService {
             shop.setLastUpdateAt(LocalDateTime.now());
 
             shopRepository.save(shop);
+            productLocalityIndex.updateShop(shop.getId(), shop.getRegency(), shop.getProvince());
+            productFilterIndex.updateShop(shop.getId(), shop.getProvince());
+            searchIndex.putShop(shop.getId(), shop.getName(), shop.getImage());
 
             EditShopResponse response = EditShopResponse.builder()
                     .name(shop.getName())
@@ -246,34 +258,12 @@ public class ShopService {
         try {
             log.info("Fetching shop data for product ID: {}", productId);
 
-            ProductEntity product = productRepository.findById(productId)
-                    .orElseThrow(() -> {
-                        log.info("Product not found with ID: {}", productId);
-                        return new DataNotFoundException("Product not found");
-                    });
-
-            ShopEntity shop = product.getShop();
-            if (shop == null) {
+            ShopByProductResponse response = shopByProductLoads.load(productId, () -> buildShopByProductResponse(productId));
+            if (response == null) {
                 log.info("No shop found for product ID: {}", productId);
                 return commonUtils.setResponse(ErrorMessageEnum.DATA_NOT_FOUND, null);
             }
 
-            List<ReviewEntity> allShopReviews = shop.getProducts().stream()
-                    .flatMap(p -> p.getReviews().stream())
-                    .toList();
-
-            Double shopRating = ProductHelper.calculateWeightedRating(allShopReviews);
-            int totalReview = allShopReviews.size();
-
-            ShopByProductResponse response = ShopByProductResponse.builder()
-                    .id(shop.getId())
-                    .name(shop.getName())
-                    .image(shop.getImage())
-                    .rating(shopRating)
-                    .totalReview(totalReview)
-                    .regency(shop.getRegency())
-                    .build();
-
             log.info("Successfully fetched shop data for product ID: {}", productId);
             return commonUtils.setResponse(ErrorMessageEnum.SUCCESS, response);
 
@@ -285,6 +275,32 @@ public class ShopService {
         }
     }
 
+    private ShopByProductResponse buildShopByProductResponse(String productId) {
+        ProductEntity product = productRepository.findById(productId)
+                .orElseThrow(() -> {
+                    log.info("Product not found with ID: {}", productId);
+                    return new DataNotFoundException("Product not found");
+                });
+
+        ShopEntity shop = product.getShop();
+        if (shop == null) {
+            return null;
+        }
+
+        ShopRatingStatsEntity ratingStats = productStatsService.findByShopId(shop.getId());
+        Double shopRating = ProductHelper.calculateWeightedRating(ratingStats.getReviewCount(), ratingStats.getRatingSum());
+        int totalReview = ratingStats.getReviewCount();
+
+        return ShopByProductResponse.builder()
+                .id(shop.getId())
+                .name(shop.getName())
+                .image(shop.getImage())
+                .rating(shopRating)
+                .totalReview(totalReview)
+                .regency(shop.getRegency())
+                .build();
+    }
+
     public ResponseEntity<ApiResponse> getShopDashboardDetail(String shopId) {
         try {
             log.info("Fetching Dashboard Data From Shop : {}", shopId);
@@ -297,13 +313,10 @@ public class ShopService {
 
             ShopEntity shopEntity = shop.get();
 
-            List<ReviewEntity> reviewsPage = reviewRepository.findByProduct_Shop_Id(shopId);
-            double reviewsAverage = reviewsPage == null || reviewsPage.isEmpty()
+            ShopRatingStatsEntity ratingStats = productStatsService.findByShopId(shopId);
+            double reviewsAverage = ratingStats.getReviewCount() == 0
                     ? 0.0
-                    : reviewsPage.stream()
-                    .mapToDouble(ReviewEntity::getRating)
-                    .average()
-                    .orElse(0.0);
+                    : ratingStats.getRatingSum() / ratingStats.getReviewCount();
 
             int TrasactionCount = transactionRepository.findByShopId(shopId).size();
 
@@ -1,5 +1,8 @@
 package com.skripsi.siap_sewa.service;
 
+import com.skripsi.siap_sewa.cache.CartCountCache;
+import com.skripsi.siap_sewa.cache.CartSnapshotCache;
+import com.skripsi.siap_sewa.cache.ProductDetailCache;
 import com.skripsi.siap_sewa.dto.ApiResponse;
 import com.skripsi.siap_sewa.dto.checkout.BuyProductRequest;
 import com.skripsi.siap_sewa.dto.checkout.CheckPaymentAmountRequest;
@@ -11,7 +14,11 @@ import com.skripsi.siap_sewa.enums.ErrorMessageEnum;
 import com.skripsi.siap_sewa.exception.DataNotFoundException;
 import com.skripsi.siap_sewa.repository.*;
 import com.skripsi.siap_sewa.spesification.TransactionSpecification;
+import com.skripsi.siap_sewa.stock.StockReservation;
+import com.skripsi.siap_sewa.stock.StockReservationEngine;
+import com.skripsi.siap_sewa.storage.CartStore;
 import com.skripsi.siap_sewa.utils.CommonUtils;
+import com.skripsi.siap_sewa.utils.Constant;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -27,6 +34,7 @@ import java.util.*;
 import java.util.stream.Collectors;
 import java.time.*;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 @Service
@@ -34,13 +42,17 @@ import java.util.concurrent.ThreadLocalRandom;
 public class TransactionService {
 
     private final TransactionRepository transactionRepository;
-    private final CartRepository cartRepository;
+    private final CartStore cartStore;
     private final CustomerRepository customerRepository;
     private final WalletReportRepository walletReportRepository;
     private final ShopRepository shopRepository;
     private final CommonUtils commonUtils;
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd MMMM yyyy");
-    private final ProductRepository productRepository;
+    private final ProductStatsService productStatsService;
+    private final ProductDetailCache productDetailCache;
+    private final CartSnapshotCache cartSnapshotCache;
+    private final CartCountCache cartCountCache;
+    private final StockReservationEngine stockReservationEngine;
 
     @Transactional
     public ResponseEntity<ApiResponse> getCustomerTransactions(TransactionFilterRequest filterRequest) {
@@ -275,19 +287,23 @@ public class TransactionService {
             }
 
             CustomerEntity customer = transactions.getFirst().getCustomer();
+            AtomicInteger removedCarts = new AtomicInteger();
             transactions.forEach(transaction -> {
                 transaction.setStatus("Belum Dibayar");
                 transaction.setLastUpdateAt(LocalDateTime.now());
                 log.info("Sekarang lagi ID yang ini {} startnya ini {} dan end nya ini {}",transaction.getId(),transaction.getStartDate(),transaction.getEndDate());
                 for (ProductEntity product : transaction.getProducts()) {
-                    Optional<CartEntity> cart = cartRepository.findByCustomerIdAndProduct_IdAndStartRentDateAndEndRentDate(customer.getId(), product.getId(),transaction.getStartDate(),transaction.getEndDate());
+                    Optional<CartEntity> cart = cartStore.findByCustomerIdAndProductIdAndDates(customer.getId(), product.getId(),transaction.getStartDate(),transaction.getEndDate());
                     if (cart.isPresent()) {
-                        cartRepository.delete(cart.get());
+                        cartStore.delete(cart.get());
+                        removedCarts.incrementAndGet();
                     }
                 }
             });
 
             transactionRepository.saveAll(transactions);
+            cartSnapshotCache.invalidate(customer.getId());
+            cartCountCache.adjust(customer.getId(), -removedCarts.get());
 
             return commonUtils.setResponse(ErrorMessageEnum.SUCCESS, "Success");
         } catch (Exception ex) {
@@ -298,6 +314,7 @@ public class TransactionService {
 
 //    endpoint untuk user bayar. Status "Belum Dibayar" berubah menjadi "Diproses"
     public ResponseEntity<ApiResponse> paymentTransaction(PaymentStatusTransactionRequest request) {
+        List<StockReservation> reservations = new ArrayList<>();
         try {
             log.info("Update Reference Number status {} Into Diproses", request.getReferenceNumbers());
 
@@ -346,6 +363,11 @@ public class TransactionService {
 
             log.info("Successfully Payment Customer ID: {}", request.getCustomerId());
 
+            // Only transactions still unpaid are new rentals; a repeated call must not count them again
+            List<TransactionEntity> countedTransactions = transactions.stream()
+                    .filter(transaction -> Constant.TRANSACTION_STATUS_PENDING.equals(transaction.getStatus()))
+                    .toList();
+
             for (TransactionEntity transaction : transactions) {
                 transaction.setPaymentMethod("Pintu_Sewa_Wallet");
                 transaction.setStatus("Diproses");
@@ -353,11 +375,14 @@ public class TransactionService {
                 transaction.setLastUpdateAt(LocalDateTime.now());
 
                 for (ProductEntity product : transaction.getProducts()) {
-                    if (product.getStock() < transaction.getQuantity()) {
+                    Optional<StockReservation> reservation = stockReservationEngine.reserve(product.getId(), transaction.getQuantity());
+                    if (reservation.isEmpty()) {
+                        stockReservationEngine.releaseAll(reservations);
                         return commonUtils.setResponse(ErrorMessageEnum.FAILED, "Stock Tidak Cukup");
                     }
 
-                    product.setStock(product.getStock() - transaction.getQuantity());
+                    reservations.add(reservation.get());
+                    productDetailCache.invalidate(product.getId());
                 }
 
                 shop.setBalance(shop.getBalance().add(transaction.getTotalDeposit().multiply(BigDecimal.valueOf(transaction.getQuantity()))));
@@ -377,10 +402,13 @@ public class TransactionService {
             }
 
             transactionRepository.saveAll(transactions);
+            stockReservationEngine.commitAll(reservations);
+            productStatsService.recordTransactions(countedTransactions, 1);
 
             return commonUtils.setResponse(ErrorMessageEnum.SUCCESS, "Success");
         } catch (Exception ex) {
             log.error("Error fetching transaction ID {} : {}", request.getReferenceNumbers(), ex.getMessage(), ex);
+            stockReservationEngine.releaseAll(reservations);
             return commonUtils.setResponse(ErrorMessageEnum.INTERNAL_SERVER_ERROR, null);
         }
     }
@@ -490,8 +518,8 @@ public class TransactionService {
                 }
 
                 for (ProductEntity product : transaction.getProducts()) {
-                    product.setStock(product.getStock() + transaction.getQuantity());
-                    productRepository.save(product);
+                    stockReservationEngine.restock(product.getId(), transaction.getQuantity());
+                    productDetailCache.invalidate(product.getId());
                 }
 
                 transaction.setStatus("Selesai");
@@ -626,6 +654,12 @@ public class TransactionService {
                 log.info("Shop not found with ID: {}", transactions.getFirst().getShopId());
                 return new DataNotFoundException("Shop not found");
             });
+
+            List<TransactionEntity> countedTransactions = transactions.stream()
+                    .filter(transaction -> !Constant.TRANSACTION_STATUS_PENDING.equals(transaction.getStatus())
+                            && !Constant.TRANSACTION_STATUS_CANCELLED.equals(transaction.getStatus()))
+                    .toList();
+
             for (TransactionEntity transaction : transactions) {
                 transaction.setStatus("Dibatalkan");
                 transaction.setDepositReturned(true);
@@ -663,12 +697,13 @@ public class TransactionService {
                 walletReportRepository.save(walletShop);
 
                 for (ProductEntity product : transaction.getProducts()) {
-                    product.setStock(product.getStock() + transaction.getQuantity()); // jika stock dan quantity int
-                    productRepository.save(product);
+                    stockReservationEngine.restock(product.getId(), transaction.getQuantity());
+                    productDetailCache.invalidate(product.getId());
                 }
             }
 
             transactionRepository.saveAll(transactions);
+            productStatsService.recordTransactions(countedTransactions, -1);
 
             return commonUtils.setResponse(ErrorMessageEnum.SUCCESS, "Success");
         } catch (Exception ex) {
@@ -0,0 +1,57 @@
+package com.skripsi.siap_sewa.spesification;
+
+import com.skripsi.siap_sewa.repository.projection.ProductCardView;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of the last product on a cursor page: the sort it was produced with,
+ * that product's sort key and its id. Clients only ever see the encoded form.
+ */
+public record ProductCursor(String sortBy, Sort.Direction direction, String sortValue, String id) {
+
+    private static final String SEPARATOR = "\n";
+
+    /**
+     * Cursor pointing just past {@code card}, using the same sort key that
+     * {@link ProductSpecification#seek} orders by (missing stats count as 0).
+     */
+    public static ProductCursor after(ProductCardView card, String sortBy, Sort.Direction direction) {
+        String sortValue = switch (sortBy) {
+            case "name" -> card.name();
+            case "dailyPrice" -> priceValue(card.dailyPrice());
+            case "weeklyPrice" -> priceValue(card.weeklyPrice());
+            case "monthlyPrice" -> priceValue(card.monthlyPrice());
+            case "lowestPrice" -> priceValue(card.lowestPrice());
+            case "rating" -> String.valueOf(card.weightedRating() != null ? card.weightedRating() : 0.0);
+            case "rentedTimes" -> String.valueOf(card.rentedCount() != null ? card.rentedCount() : 0);
+            default -> throw new IllegalArgumentException("Unsupported cursor sort field: " + sortBy);
+        };
+        return new ProductCursor(sortBy, direction, sortValue, card.id());
+    }
+
+    private static String priceValue(BigDecimal price) {
+        return (price != null ? price : BigDecimal.ZERO).toPlainString();
+    }
+
+    public String encode() {
+        String raw = String.join(SEPARATOR, sortBy, direction.name(), sortValue, id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ProductCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR, -1);
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new ProductCursor(parts[0], Sort.Direction.valueOf(parts[1]), parts[2], parts[3]);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -2,27 +2,53 @@ package com.skripsi.siap_sewa.spesification;
 
 import com.skripsi.siap_sewa.dto.product.ProductFilterRequest;
 import com.skripsi.siap_sewa.entity.ProductEntity;
+import com.skripsi.siap_sewa.entity.ProductStatsEntity;
 import com.skripsi.siap_sewa.entity.ShopEntity;
+import com.skripsi.siap_sewa.index.ProductLocalityIndex;
 import jakarta.persistence.criteria.*;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 
 @Slf4j
 public class ProductSpecification {
 
+    // Sort keys that live on PRODUCT_STATS rather than on the product itself
+    private static final Map<String, String> STATS_SORT_FIELDS = Map.of(
+            "rating", "weightedRating",
+            "rentedTimes", "rentedCount"
+    );
+
+    // Value used for a missing number, per numeric sort key
+    private static final Map<String, Number> NUMERIC_SORT_DEFAULTS = Map.of(
+            "dailyPrice", BigDecimal.ZERO,
+            "weeklyPrice", BigDecimal.ZERO,
+            "monthlyPrice", BigDecimal.ZERO,
+            "lowestPrice", BigDecimal.ZERO,
+            "rating", 0.0,
+            "rentedTimes", 0
+    );
+
+    public static boolean isStatsSort(String sortBy) {
+        return STATS_SORT_FIELDS.containsKey(sortBy);
+    }
+
     public static Specification<ProductEntity> withFilters(ProductFilterRequest filterRequest) {
         return (root, query, criteriaBuilder) -> {
             List<Predicate> predicates = new ArrayList<>();
 
-            // Add distinct if necessary to avoid duplicates
-            query.distinct(true);
+            // All joins below are to-one, so rows are never duplicated and no DISTINCT is needed
+            // (Postgres would also reject DISTINCT together with ORDER BY on a joined column)
 
             // Name filter with improved search (case insensitive)
             if (StringUtils.hasText(filterRequest.getName())) {
@@ -43,15 +69,18 @@ public class ProductSpecification {
                 predicates.add(root.get("category").in(filterRequest.getCategories()));
             }
 
-            // Province filter (case insensitive)
+            // Province filter, normalized like the filter index (see ProductLocalityIndex.normalize)
             if (!CollectionUtils.isEmpty(filterRequest.getProvinces())) {
                 Join<ProductEntity, ShopEntity> shopJoin = root.join("shop", JoinType.INNER);
 
                 List<String> normalizedProvinces = filterRequest.getProvinces().stream()
-                        .map(String::toLowerCase)
+                        .map(ProductLocalityIndex::normalize)
+                        .filter(Objects::nonNull)
                         .toList();
 
-                predicates.add(criteriaBuilder.lower(shopJoin.get("province")).in(normalizedProvinces));
+                predicates.add(normalizedProvinces.isEmpty()
+                        ? criteriaBuilder.disjunction()
+                        : normalized(criteriaBuilder, shopJoin.get("province")).in(normalizedProvinces));
             }
 
             // Rent duration filter (exact match)
@@ -67,8 +96,20 @@ public class ProductSpecification {
                 predicates.add(root.get("isRnb").in(filterRequest.getIsRnbOptions()));
             }
 
-            // Add additional indexes for these common queries
-            query.orderBy(); // Let the pageable handle the ordering
+            // Rating filter, evaluated on the indexed weighted rating; products without reviews rate 0
+            if (!CollectionUtils.isEmpty(filterRequest.getMinRatings())) {
+                Expression<Double> rating = criteriaBuilder.coalesce(
+                        statsJoin(root).<Double>get("weightedRating"), 0.0);
+
+                Predicate[] ratingRanges = filterRequest.getMinRatings().stream()
+                        .map(min -> criteriaBuilder.and(
+                                criteriaBuilder.greaterThanOrEqualTo(rating, min),
+                                criteriaBuilder.lessThan(rating, min + 1)))
+                        .toArray(Predicate[]::new);
+                predicates.add(criteriaBuilder.or(ratingRanges));
+            }
+
+            query.orderBy(); // Let the pageable (or orderByStats) handle the ordering
 
             Predicate finalPredicate = criteriaBuilder.and(predicates.toArray(new Predicate[0]));
             log.debug("Generated filter predicate: {}", finalPredicate);
@@ -76,6 +117,105 @@ public class ProductSpecification {
         };
     }
 
+    /**
+     * Restricts to the given product ids, e.g. the matches of the in-memory filter index.
+     */
+    public static Specification<ProductEntity> idIn(Collection<String> ids) {
+        return (root, query, criteriaBuilder) -> ids.isEmpty()
+                ? criteriaBuilder.disjunction()
+                : root.get("id").in(ids);
+    }
+
+    /**
+     * Orders by a PRODUCT_STATS column (see {@link #isStatsSort}), with products that
+     * have no stats row treated as 0. Use with an unsorted pageable, since a pageable
+     * sort replaces any ordering applied by a specification.
+     */
+    public static Specification<ProductEntity> orderByStats(String sortBy, Sort.Direction direction) {
+        return (root, query, criteriaBuilder) -> {
+            Expression<Number> value = numericSortKey(root, criteriaBuilder, sortBy);
+            query.orderBy(
+                    direction == Sort.Direction.DESC ? criteriaBuilder.desc(value) : criteriaBuilder.asc(value),
+                    criteriaBuilder.asc(root.get("id"))
+            );
+            return null;
+        };
+    }
+
+    /**
+     * Keyset pagination: orders by (sort key, id) in the given direction and, when a
+     * cursor is given, only keeps rows strictly after it. Missing numbers sort as 0.
+     */
+    public static Specification<ProductEntity> seek(String sortBy, Sort.Direction direction, ProductCursor after) {
+        return (root, query, criteriaBuilder) -> {
+            boolean descending = direction == Sort.Direction.DESC;
+            Path<String> id = root.get("id");
+            Expression<?> key = "name".equals(sortBy) ? root.get("name") : numericSortKey(root, criteriaBuilder, sortBy);
+            query.orderBy(
+                    descending ? criteriaBuilder.desc(key) : criteriaBuilder.asc(key),
+                    descending ? criteriaBuilder.desc(id) : criteriaBuilder.asc(id)
+            );
+
+            if (after == null) {
+                return null;
+            }
+
+            Predicate beyondKey;
+            Predicate sameKey;
+            if ("name".equals(sortBy)) {
+                Path<String> name = root.get("name");
+                beyondKey = descending
+                        ? criteriaBuilder.lessThan(name, after.sortValue())
+                        : criteriaBuilder.greaterThan(name, after.sortValue());
+                sameKey = criteriaBuilder.equal(name, after.sortValue());
+            } else {
+                Expression<Number> number = numericSortKey(root, criteriaBuilder, sortBy);
+                Number value = parseSortValue(sortBy, after.sortValue());
+                beyondKey = descending ? criteriaBuilder.lt(number, value) : criteriaBuilder.gt(number, value);
+                sameKey = criteriaBuilder.equal(number, value);
+            }
+            Predicate beyondId = descending
+                    ? criteriaBuilder.lessThan(id, after.id())
+                    : criteriaBuilder.greaterThan(id, after.id());
+
+            return criteriaBuilder.or(beyondKey, criteriaBuilder.and(sameKey, beyondId));
+        };
+    }
+
+    // SQL form of ProductLocalityIndex.normalize: collapse whitespace runs, trim, lower case
+    private static Expression<String> normalized(CriteriaBuilder criteriaBuilder, Expression<String> value) {
+        Expression<String> collapsed = criteriaBuilder.function("regexp_replace", String.class,
+                value, criteriaBuilder.literal("\\s+"), criteriaBuilder.literal(" "), criteriaBuilder.literal("g"));
+        return criteriaBuilder.lower(criteriaBuilder.trim(collapsed));
+    }
+
+    private static Expression<Number> numericSortKey(Root<ProductEntity> root, CriteriaBuilder criteriaBuilder, String sortBy) {
+        Path<Number> path = isStatsSort(sortBy)
+                ? statsJoin(root).get(STATS_SORT_FIELDS.get(sortBy))
+                : root.get(sortBy);
+        return criteriaBuilder.coalesce(path, NUMERIC_SORT_DEFAULTS.get(sortBy));
+    }
+
+    private static Number parseSortValue(String sortBy, String value) {
+        Number missing = NUMERIC_SORT_DEFAULTS.get(sortBy);
+        if (missing instanceof Double) {
+            return Double.valueOf(value);
+        }
+        if (missing instanceof Integer) {
+            return Integer.valueOf(value);
+        }
+        return new BigDecimal(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Join<ProductEntity, ProductStatsEntity> statsJoin(Root<ProductEntity> root) {
+        return root.getJoins().stream()
+                .filter(join -> "stats".equals(join.getAttribute().getName()))
+                .map(join -> (Join<ProductEntity, ProductStatsEntity>) join)
+                .findFirst()
+                .orElseGet(() -> root.join("stats", JoinType.LEFT));
+    }
+
     private static void addPricePredicates(
             ProductFilterRequest filterRequest,
             Root<ProductEntity> root,
@@ -85,42 +225,15 @@ public class ProductSpecification {
         BigDecimal minPrice = filterRequest.getMinPrice();
         BigDecimal maxPrice = filterRequest.getMaxPrice();
 
-        if (minPrice != null && maxPrice != null) {
-            // Both min and max price specified
-            Predicate dailyPriceRange = criteriaBuilder.and(
-                    criteriaBuilder.greaterThanOrEqualTo(root.get("dailyPrice"), minPrice),
-                    criteriaBuilder.lessThanOrEqualTo(root.get("dailyPrice"), maxPrice)
-            );
-
-            Predicate weeklyPriceRange = criteriaBuilder.and(
-                    criteriaBuilder.greaterThanOrEqualTo(root.get("weeklyPrice"), minPrice),
-                    criteriaBuilder.lessThanOrEqualTo(root.get("weeklyPrice"), maxPrice)
-            );
-
-            Predicate monthlyPriceRange = criteriaBuilder.and(
-                    criteriaBuilder.greaterThanOrEqualTo(root.get("monthlyPrice"), minPrice),
-                    criteriaBuilder.lessThanOrEqualTo(root.get("monthlyPrice"), maxPrice)
-            );
+        // Single range on the persisted lowest price, so the category/lowest_price index applies
+        Path<BigDecimal> lowestPrice = root.get("lowestPrice");
 
-            predicates.add(criteriaBuilder.or(dailyPriceRange, weeklyPriceRange, monthlyPriceRange));
-        } else {
-            // Only min price specified
-            if (minPrice != null) {
-                predicates.add(criteriaBuilder.or(
-                        criteriaBuilder.greaterThanOrEqualTo(root.get("dailyPrice"), minPrice),
-                        criteriaBuilder.greaterThanOrEqualTo(root.get("weeklyPrice"), minPrice),
-                        criteriaBuilder.greaterThanOrEqualTo(root.get("monthlyPrice"), minPrice)
-                ));
-            }
+        if (minPrice != null) {
+            predicates.add(criteriaBuilder.greaterThanOrEqualTo(lowestPrice, minPrice));
+        }
 
-            // Only max price specified
-            if (maxPrice != null) {
-                predicates.add(criteriaBuilder.or(
-                        criteriaBuilder.lessThanOrEqualTo(root.get("dailyPrice"), maxPrice),
-                        criteriaBuilder.lessThanOrEqualTo(root.get("weeklyPrice"), maxPrice),
-                        criteriaBuilder.lessThanOrEqualTo(root.get("monthlyPrice"), maxPrice)
-                ));
-            }
+        if (maxPrice != null) {
+            predicates.add(criteriaBuilder.lessThanOrEqualTo(lowestPrice, maxPrice));
         }
     }
 }
@@ -0,0 +1,36 @@
+package com.skripsi.siap_sewa.spesification;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of the last review on a cursor page of a review listing, which is
+ * ordered newest first by (createdAt, id). Clients only ever see the encoded form.
+ */
+public record ReviewCursor(LocalDateTime createdAt, String id) {
+
+    // Sorts after every review, so seeking past it returns the first page
+    public static final ReviewCursor START = new ReviewCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), "");
+
+    private static final String SEPARATOR = "\n";
+
+    public String encode() {
+        String raw = createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ReviewCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(SEPARATOR, -1);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new ReviewCursor(LocalDateTime.parse(parts[0]), parts[1]);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
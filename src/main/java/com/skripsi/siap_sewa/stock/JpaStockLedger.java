@@ -0,0 +1,27 @@
+package com.skripsi.siap_sewa.stock;
+
+import com.skripsi.siap_sewa.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stock ledger on the product table: a conditional UPDATE takes stock only while
+ * enough is left, so concurrent takes cannot oversell and need no lock held across
+ * a read.
+ */
+@Component
+@RequiredArgsConstructor
+public class JpaStockLedger implements StockLedger {
+
+    private final ProductRepository productRepository;
+
+    @Override
+    public boolean take(String productId, int quantity) {
+        return productRepository.takeStock(productId, quantity) == 1;
+    }
+
+    @Override
+    public void restore(String productId, int quantity) {
+        productRepository.restoreStock(productId, quantity);
+    }
+}
@@ -0,0 +1,17 @@
+package com.skripsi.siap_sewa.stock;
+
+/**
+ * The product stock counters. Every change is a single atomic step on the stored
+ * counter, never a read followed by a write.
+ */
+public interface StockLedger {
+
+    /**
+     * Takes {@code quantity} units if at least that many are in stock.
+     *
+     * @return false, leaving the stock untouched, when there are fewer units
+     */
+    boolean take(String productId, int quantity);
+
+    void restore(String productId, int quantity);
+}
@@ -0,0 +1,8 @@
+package com.skripsi.siap_sewa.stock;
+
+/**
+ * Stock taken for a pending operation; it is either committed or released, and
+ * released automatically once {@code expiresAt} (epoch millis) has passed.
+ */
+public record StockReservation(String id, String productId, int quantity, long expiresAt) {
+}
@@ -0,0 +1,129 @@
+package com.skripsi.siap_sewa.stock;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reserves product stock with the ledger's conditional take, so two renters can never
+ * both get the last unit. A reservation is ended exactly once: {@link #commit} keeps the
+ * stock taken, {@link #release} (or the expiry sweep) gives it back.
+ * <p>
+ * Inside a transaction the take is part of it; if that transaction rolls back the
+ * database has already undone the take, so the reservation is simply forgotten. For the
+ * same reason the expiry sweep leaves a reservation alone while its transaction is open:
+ * its restore would commit on its own and the rollback would then give the stock back twice.
+ */
+@Slf4j
+@Component
+public class StockReservationEngine {
+
+    private final StockLedger stockLedger;
+    private final long ttlMillis;
+
+    private final Map<String, StockReservation> active = new ConcurrentHashMap<>();
+    // Reservations whose transaction has not completed yet
+    private final Set<String> inOpenTransaction = ConcurrentHashMap.newKeySet();
+
+    public StockReservationEngine(StockLedger stockLedger,
+                                  @Value("${pintu.sewa.stock-reservation.ttl-ms:300000}") long ttlMillis) {
+        this.stockLedger = stockLedger;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Takes {@code quantity} units of the product, or returns empty when fewer are in stock.
+     */
+    public Optional<StockReservation> reserve(String productId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Reservation quantity must be positive: " + quantity);
+        }
+        if (!stockLedger.take(productId, quantity)) {
+            return Optional.empty();
+        }
+
+        StockReservation reservation = new StockReservation(
+                UUID.randomUUID().toString(), productId, quantity, System.currentTimeMillis() + ttlMillis);
+        active.put(reservation.id(), reservation);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            inOpenTransaction.add(reservation.id());
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    inOpenTransaction.remove(reservation.id());
+                    if (status == STATUS_ROLLED_BACK) {
+                        active.remove(reservation.id());
+                    }
+                }
+            });
+        }
+        return Optional.of(reservation);
+    }
+
+    /**
+     * Ends the reservation keeping its stock taken. False when it had already ended.
+     */
+    public boolean commit(String reservationId) {
+        return active.remove(reservationId) != null;
+    }
+
+    /**
+     * Ends the reservation giving its stock back. False when it had already ended.
+     */
+    public boolean release(String reservationId) {
+        StockReservation reservation = active.remove(reservationId);
+        if (reservation == null) {
+            return false;
+        }
+        stockLedger.restore(reservation.productId(), reservation.quantity());
+        return true;
+    }
+
+    public void commitAll(Collection<StockReservation> reservations) {
+        reservations.forEach(reservation -> commit(reservation.id()));
+    }
+
+    public void releaseAll(Collection<StockReservation> reservations) {
+        reservations.forEach(reservation -> release(reservation.id()));
+    }
+
+    /**
+     * Gives back stock that was taken by an earlier, already committed operation,
+     * such as a returned or cancelled rental.
+     */
+    public void restock(String productId, int quantity) {
+        stockLedger.restore(productId, quantity);
+    }
+
+    @Scheduled(fixedDelayString = "${pintu.sewa.stock-reservation.sweep-interval-ms:30000}")
+    public int releaseExpired() {
+        long now = System.currentTimeMillis();
+        int released = 0;
+        for (StockReservation reservation : active.values()) {
+            if (reservation.expiresAt() <= now
+                    && !inOpenTransaction.contains(reservation.id())
+                    && release(reservation.id())) {
+                released++;
+            }
+        }
+        if (released > 0) {
+            log.warn("Released {} expired stock reservations", released);
+        }
+        return released;
+    }
+
+    public int activeCount() {
+        return active.size();
+    }
+}
@@ -0,0 +1,50 @@
+package com.skripsi.siap_sewa.storage;
+
+import com.skripsi.siap_sewa.entity.CartEntity;
+import com.skripsi.siap_sewa.repository.projection.CartItemView;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Where cart items live. The backend is picked with {@code pintu.sewa.cart-store.type}:
+ * {@code jpa} reads and writes the CART table directly, {@code memory} keeps carts in
+ * memory and writes them behind to CART.
+ * <p>
+ * Returned entities are copies as far as the caller is concerned: changes only take
+ * effect through {@link #save(CartEntity)}.
+ */
+public interface CartStore {
+
+    /**
+     * The customer's cart rows with their product and shop, ordered by shop.
+     */
+    List<CartItemView> findItemViews(String customerId);
+
+    Optional<CartEntity> findById(String cartId);
+
+    long countByCustomerId(String customerId);
+
+    /**
+     * Cart items by id, each customer's items read at a single point in time.
+     */
+    List<CartEntity> findAllById(Collection<String> cartIds);
+
+    Optional<CartEntity> findByCustomerIdAndProductIdAndDates(String customerId,
+                                                              String productId,
+                                                              LocalDate startRentDate,
+                                                              LocalDate endRentDate);
+
+    CartEntity save(CartEntity cart);
+
+    void delete(CartEntity cart);
+
+    /**
+     * Runs {@code action} with no other mutation of the customer's cart interleaved,
+     * for read-then-write sequences such as merging into an existing item.
+     */
+    <T> T withCustomerLock(String customerId, Supplier<T> action);
+}
@@ -0,0 +1,29 @@
+package com.skripsi.siap_sewa.storage;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.utils.ObjectUtils;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "pintu.sewa.image-storage.type", havingValue = "cloudinary", matchIfMissing = true)
+public class CloudinaryImageStorage implements ImageStorage {
+
+    private final Cloudinary cloudinary;
+
+    @Override
+    public String store(byte[] content, String contentType, String folder) throws IOException {
+        Map<?, ?> uploadResult = cloudinary.uploader()
+                .upload(content,
+                        ObjectUtils.asMap(
+                                "folder", folder,
+                                "resource_type", "image"
+                        ));
+        return (String) uploadResult.get("secure_url");
+    }
+}
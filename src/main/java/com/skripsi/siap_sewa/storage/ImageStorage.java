@@ -0,0 +1,15 @@
+package com.skripsi.siap_sewa.storage;
+
+import java.io.IOException;
+
+/**
+ * Where uploaded images end up. The backend is picked with
+ * {@code pintu.sewa.image-storage.type} ({@code cloudinary} or {@code local}).
+ */
+public interface ImageStorage {
+
+    /**
+     * Stores the image and returns the URL it is served from.
+     */
+    String store(byte[] content, String contentType, String folder) throws IOException;
+}
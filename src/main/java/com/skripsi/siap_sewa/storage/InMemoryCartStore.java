@@ -0,0 +1,410 @@
+package com.skripsi.siap_sewa.storage;
+
+import com.skripsi.siap_sewa.entity.CartEntity;
+import com.skripsi.siap_sewa.entity.ProductEntity;
+import com.skripsi.siap_sewa.repository.CartRepository;
+import com.skripsi.siap_sewa.repository.ProductRepository;
+import com.skripsi.siap_sewa.repository.projection.CartItemView;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Cart store that keeps each active customer's cart in memory and writes changes behind
+ * to the CART table. A customer's cart is loaded from CART on first use and every access
+ * to it holds the customer's lock stripe, so reads see whole mutations only.
+ * <p>
+ * With {@code durability=write-behind} mutations are queued per cart item, so repeated
+ * edits of one item coalesce into a single write, and a scheduled flush persists the queue
+ * in batches, one transaction each. With {@code durability=write-through} every mutation
+ * is persisted before it is applied in memory. Carts idle for longer than the eviction
+ * bound and fully flushed are dropped from memory.
+ * <p>
+ * Only one application instance may use this store, as carts are not shared between JVMs.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "pintu.sewa.cart-store.type", havingValue = "memory")
+public class InMemoryCartStore implements CartStore {
+
+    private static final String WRITE_BEHIND = "write-behind";
+    private static final String WRITE_THROUGH = "write-through";
+
+    private record CartRow(String id,
+                           String customerId,
+                           String productId,
+                           int quantity,
+                           BigDecimal totalAmount,
+                           LocalDate startRentDate,
+                           LocalDate endRentDate,
+                           String shippingAddress,
+                           String shippingPartner,
+                           LocalDateTime createdAt,
+                           LocalDateTime lastUpdateAt) {}
+
+    // Latest unflushed state of one cart item; a null row is a delete
+    private record PendingWrite(String cartId, String customerId, CartRow row, int failedAttempts) {
+
+        private PendingWrite(String cartId, String customerId, CartRow row) {
+            this(cartId, customerId, row, 0);
+        }
+
+        private PendingWrite failed() {
+            return new PendingWrite(cartId, customerId, row, failedAttempts + 1);
+        }
+    }
+
+    private static final class CustomerCart {
+        private final Map<String, CartRow> rows = new LinkedHashMap<>();
+        private long lastAccessAt;
+    }
+
+    private final CartRepository cartRepository;
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean writeThrough;
+    private final int flushBatchSize;
+    private final int maxFlushAttempts;
+    private final long idleEvictMillis;
+
+    private final ReentrantLock[] stripes;
+    private final Map<String, CustomerCart> carts = new ConcurrentHashMap<>();
+    private final Map<String, String> customerByCartId = new ConcurrentHashMap<>();
+    private final Map<String, PendingWrite> pending = new ConcurrentHashMap<>();
+
+    public InMemoryCartStore(CartRepository cartRepository,
+                             ProductRepository productRepository,
+                             TransactionTemplate transactionTemplate,
+                             @Value("${pintu.sewa.cart-store.durability:write-behind}") String durability,
+                             @Value("${pintu.sewa.cart-store.lock-stripes:64}") int lockStripes,
+                             @Value("${pintu.sewa.cart-store.flush-batch-size:500}") int flushBatchSize,
+                             @Value("${pintu.sewa.cart-store.max-flush-attempts:5}") int maxFlushAttempts,
+                             @Value("${pintu.sewa.cart-store.idle-evict-ms:600000}") long idleEvictMillis) {
+        if (!WRITE_BEHIND.equals(durability) && !WRITE_THROUGH.equals(durability)) {
+            throw new IllegalArgumentException("Unknown cart store durability: " + durability);
+        }
+        this.cartRepository = cartRepository;
+        this.productRepository = productRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.writeThrough = WRITE_THROUGH.equals(durability);
+        this.flushBatchSize = flushBatchSize;
+        this.maxFlushAttempts = maxFlushAttempts;
+        this.idleEvictMillis = idleEvictMillis;
+
+        this.stripes = new ReentrantLock[lockStripes];
+        for (int i = 0; i < lockStripes; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public List<CartItemView> findItemViews(String customerId) {
+        List<CartRow> rows = withCustomerLock(customerId, () -> List.copyOf(loadedCart(customerId).rows.values()));
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+
+        Set<String> productIds = rows.stream().map(CartRow::productId).collect(Collectors.toSet());
+        Map<String, ProductEntity> products = productRepository.findAllWithShopByIdIn(productIds).stream()
+                .collect(Collectors.toMap(ProductEntity::getId, Function.identity()));
+        dropDeadRows(customerId, rows, products.keySet());
+
+        return rows.stream()
+                .filter(row -> products.containsKey(row.productId()))
+                .sorted(Comparator.comparing((CartRow row) -> products.get(row.productId()).getShop().getId())
+                        .thenComparing(CartRow::createdAt, Comparator.nullsLast(Comparator.reverseOrder())))
+                .map(row -> toView(row, products.get(row.productId())))
+                .toList();
+    }
+
+    @Override
+    public Optional<CartEntity> findById(String cartId) {
+        return ownerOf(cartId)
+                .flatMap(customerId -> withCustomerLock(customerId,
+                        () -> Optional.ofNullable(loadedCart(customerId).rows.get(cartId))))
+                .map(this::toEntity);
+    }
+
+    /**
+     * Counts the rows {@link #findItemViews} would list, i.e. those whose product (and its
+     * shop) still exists.
+     */
+    @Override
+    public long countByCustomerId(String customerId) {
+        List<CartRow> rows = withCustomerLock(customerId, () -> List.copyOf(loadedCart(customerId).rows.values()));
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        Set<String> liveProductIds = new HashSet<>(productRepository.findIdsWithShopByIdIn(
+                rows.stream().map(CartRow::productId).collect(Collectors.toSet())));
+        dropDeadRows(customerId, rows, liveProductIds);
+        return rows.stream().filter(row -> liveProductIds.contains(row.productId())).count();
+    }
+
+    @Override
+    public List<CartEntity> findAllById(Collection<String> cartIds) {
+        Map<String, List<String>> idsByCustomer = new LinkedHashMap<>();
+        for (String cartId : cartIds) {
+            ownerOf(cartId).ifPresent(customerId ->
+                    idsByCustomer.computeIfAbsent(customerId, key -> new ArrayList<>()).add(cartId));
+        }
+
+        List<CartRow> rows = new ArrayList<>();
+        idsByCustomer.forEach((customerId, ids) -> rows.addAll(withCustomerLock(customerId, () -> {
+            CustomerCart cart = loadedCart(customerId);
+            return ids.stream().map(cart.rows::get).filter(Objects::nonNull).toList();
+        })));
+        return rows.stream().map(this::toEntity).toList();
+    }
+
+    @Override
+    public Optional<CartEntity> findByCustomerIdAndProductIdAndDates(String customerId,
+                                                                     String productId,
+                                                                     LocalDate startRentDate,
+                                                                     LocalDate endRentDate) {
+        return withCustomerLock(customerId, () -> loadedCart(customerId).rows.values().stream()
+                .filter(row -> row.productId().equals(productId)
+                        && Objects.equals(row.startRentDate(), startRentDate)
+                        && Objects.equals(row.endRentDate(), endRentDate))
+                .findFirst())
+                .map(this::toEntity);
+    }
+
+    @Override
+    public CartEntity save(CartEntity cart) {
+        String customerId = cart.getCustomerId();
+        return withCustomerLock(customerId, () -> {
+            CustomerCart customerCart = loadedCart(customerId);
+            if (cart.getId() == null) {
+                cart.setId(UUID.randomUUID().toString());
+            }
+            CartRow row = toRow(cart);
+            write(new PendingWrite(row.id(), customerId, row));
+            customerCart.rows.put(row.id(), row);
+            customerByCartId.put(row.id(), customerId);
+            return cart;
+        });
+    }
+
+    @Override
+    public void delete(CartEntity cart) {
+        String customerId = cart.getCustomerId();
+        withCustomerLock(customerId, () -> {
+            CustomerCart customerCart = loadedCart(customerId);
+            write(new PendingWrite(cart.getId(), customerId, null));
+            customerCart.rows.remove(cart.getId());
+            customerByCartId.remove(cart.getId());
+            return null;
+        });
+    }
+
+    @Override
+    public <T> T withCustomerLock(String customerId, Supplier<T> action) {
+        ReentrantLock lock = stripes[Math.floorMod(customerId.hashCode(), stripes.length)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Persists the queued writes in batches, then drops idle carts. When a batch fails its
+     * writes are retried one at a time, so one bad row cannot hold back the others; a write
+     * that keeps failing is put back for the next run (unless the item was written again
+     * meanwhile) and dropped after {@code max-flush-attempts} runs.
+     */
+    @Scheduled(fixedDelayString = "${pintu.sewa.cart-store.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        List<PendingWrite> retry = new ArrayList<>();
+        try {
+            while (!pending.isEmpty()) {
+                List<PendingWrite> batch = new ArrayList<>(flushBatchSize);
+                for (String cartId : pending.keySet()) {
+                    PendingWrite write = pending.remove(cartId);
+                    if (write != null) {
+                        batch.add(write);
+                    }
+                    if (batch.size() == flushBatchSize) {
+                        break;
+                    }
+                }
+
+                try {
+                    persist(batch);
+                    log.debug("Flushed {} cart writes", batch.size());
+                } catch (Exception e) {
+                    log.warn("Failed to flush {} cart writes as a batch, retrying one at a time: {}",
+                            batch.size(), e.getMessage());
+                    batch.forEach(write -> persistAlone(write, retry));
+                }
+            }
+        } finally {
+            retry.forEach(write -> pending.putIfAbsent(write.cartId(), write));
+            evictIdle();
+        }
+    }
+
+    public int pendingWrites() {
+        return pending.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        if (!pending.isEmpty()) {
+            log.error("{} cart writes could not be flushed before shutdown", pending.size());
+        }
+    }
+
+    // Caller holds the customer's lock
+    private CustomerCart loadedCart(String customerId) {
+        CustomerCart cart = carts.get(customerId);
+        if (cart == null) {
+            cart = new CustomerCart();
+            for (CartEntity entity : cartRepository.findLiveByCustomerId(customerId)) {
+                cart.rows.put(entity.getId(), toRow(entity));
+                customerByCartId.put(entity.getId(), customerId);
+            }
+            carts.put(customerId, cart);
+        }
+        cart.lastAccessAt = System.currentTimeMillis();
+        return cart;
+    }
+
+    private void persistAlone(PendingWrite write, List<PendingWrite> retry) {
+        try {
+            persist(List.of(write));
+        } catch (Exception e) {
+            PendingWrite failed = write.failed();
+            if (failed.failedAttempts() >= maxFlushAttempts) {
+                log.error("Dropping cart write {} of customer {} after {} failed attempts: {}",
+                        write.cartId(), write.customerId(), failed.failedAttempts(), e.getMessage());
+            } else {
+                retry.add(failed);
+            }
+        }
+    }
+
+    // Rows whose product is gone are never listed, so they are removed from the cart
+    private void dropDeadRows(String customerId, List<CartRow> rows, Set<String> liveProductIds) {
+        List<CartRow> deadRows = rows.stream()
+                .filter(row -> !liveProductIds.contains(row.productId()))
+                .toList();
+        if (deadRows.isEmpty()) {
+            return;
+        }
+        withCustomerLock(customerId, () -> {
+            CustomerCart cart = loadedCart(customerId);
+            for (CartRow row : deadRows) {
+                if (cart.rows.remove(row.id()) != null) {
+                    customerByCartId.remove(row.id());
+                    write(new PendingWrite(row.id(), customerId, null));
+                }
+            }
+            return null;
+        });
+    }
+
+    private Optional<String> ownerOf(String cartId) {
+        String customerId = customerByCartId.get(cartId);
+        if (customerId != null) {
+            return Optional.of(customerId);
+        }
+        return cartRepository.findById(cartId).map(CartEntity::getCustomerId);
+    }
+
+    private void write(PendingWrite write) {
+        if (writeThrough) {
+            persist(List.of(write));
+        } else {
+            pending.put(write.cartId(), write);
+        }
+    }
+
+    private void persist(List<PendingWrite> writes) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<String> deletedIds = new ArrayList<>();
+            for (PendingWrite write : writes) {
+                CartRow row = write.row();
+                if (row == null) {
+                    deletedIds.add(write.cartId());
+                    continue;
+                }
+                cartRepository.upsert(row.id(), row.customerId(), row.productId(), row.quantity(),
+                        row.totalAmount(), row.startRentDate(), row.endRentDate(),
+                        row.shippingAddress(), row.shippingPartner(), row.createdAt(), row.lastUpdateAt());
+            }
+            if (!deletedIds.isEmpty()) {
+                cartRepository.deleteByIdIn(deletedIds);
+            }
+        });
+    }
+
+    private void evictIdle() {
+        long idleBefore = System.currentTimeMillis() - idleEvictMillis;
+        Set<String> customersWithPending = pending.values().stream()
+                .map(PendingWrite::customerId)
+                .collect(Collectors.toSet());
+
+        for (String customerId : carts.keySet()) {
+            if (customersWithPending.contains(customerId)) {
+                continue;
+            }
+            withCustomerLock(customerId, () -> {
+                CustomerCart cart = carts.get(customerId);
+                if (cart != null && cart.lastAccessAt < idleBefore) {
+                    carts.remove(customerId);
+                    cart.rows.keySet().forEach(customerByCartId::remove);
+                }
+                return null;
+            });
+        }
+    }
+
+    private CartRow toRow(CartEntity cart) {
+        return new CartRow(cart.getId(), cart.getCustomerId(), cart.getProduct().getId(), cart.getQuantity(),
+                cart.getTotalAmount(), cart.getStartRentDate(), cart.getEndRentDate(),
+                cart.getShippingAddress(), cart.getShippingPartner(), cart.getCreatedAt(), cart.getLastUpdateAt());
+    }
+
+    private CartEntity toEntity(CartRow row) {
+        return CartEntity.builder()
+                .id(row.id())
+                .customerId(row.customerId())
+                .product(productRepository.getReferenceById(row.productId()))
+                .quantity(row.quantity())
+                .totalAmount(row.totalAmount())
+                .startRentDate(row.startRentDate())
+                .endRentDate(row.endRentDate())
+                .shippingAddress(row.shippingAddress())
+                .shippingPartner(row.shippingPartner())
+                .createdAt(row.createdAt())
+                .lastUpdateAt(row.lastUpdateAt())
+                .build();
+    }
+
+    private static CartItemView toView(CartRow row, ProductEntity product) {
+        return new CartItemView(row.id(), row.quantity(), row.startRentDate(), row.endRentDate(),
+                product.getId(), product.getName(), product.getImage(), product.getStock(), product.getDeposit(),
+                product.getMinRented(), product.getRentCategory(),
+                product.getDailyPrice(), product.getWeeklyPrice(), product.getMonthlyPrice(), product.getLowestPrice(),
+                product.getShop().getId(), product.getShop().getName());
+    }
+}
@@ -0,0 +1,69 @@
+package com.skripsi.siap_sewa.storage;
+
+import com.skripsi.siap_sewa.entity.CartEntity;
+import com.skripsi.siap_sewa.repository.CartRepository;
+import com.skripsi.siap_sewa.repository.projection.CartItemView;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Cart store backed by the CART table alone; every call is a database round trip.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "pintu.sewa.cart-store.type", havingValue = "jpa", matchIfMissing = true)
+public class JpaCartStore implements CartStore {
+
+    private final CartRepository cartRepository;
+
+    @Override
+    public List<CartItemView> findItemViews(String customerId) {
+        return cartRepository.findCartItemViewsByCustomerId(customerId);
+    }
+
+    @Override
+    public Optional<CartEntity> findById(String cartId) {
+        return cartRepository.findById(cartId);
+    }
+
+    @Override
+    public long countByCustomerId(String customerId) {
+        return cartRepository.countByCustomerId(customerId);
+    }
+
+    @Override
+    public List<CartEntity> findAllById(Collection<String> cartIds) {
+        return cartRepository.findAllById(cartIds);
+    }
+
+    @Override
+    public Optional<CartEntity> findByCustomerIdAndProductIdAndDates(String customerId,
+                                                                     String productId,
+                                                                     LocalDate startRentDate,
+                                                                     LocalDate endRentDate) {
+        return cartRepository.findByCustomerIdAndProduct_IdAndStartRentDateAndEndRentDate(
+                customerId, productId, startRentDate, endRentDate);
+    }
+
+    @Override
+    public CartEntity save(CartEntity cart) {
+        return cartRepository.save(cart);
+    }
+
+    @Override
+    public void delete(CartEntity cart) {
+        cartRepository.delete(cart);
+    }
+
+    @Override
+    public <T> T withCustomerLock(String customerId, Supplier<T> action) {
+        return action.get();
+    }
+}
@@ -0,0 +1,37 @@
+package com.skripsi.siap_sewa.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+/**
+ * Writes images under {@code pintu.sewa.image-storage.local-dir} and returns file URLs,
+ * for tests and local runs without Cloudinary credentials.
+ */
+@Component
+@ConditionalOnProperty(name = "pintu.sewa.image-storage.type", havingValue = "local")
+public class LocalImageStorage implements ImageStorage {
+
+    private final Path root;
+
+    public LocalImageStorage(@Value("${pintu.sewa.image-storage.local-dir:uploads}") String root) {
+        this.root = Path.of(root);
+    }
+
+    @Override
+    public String store(byte[] content, String contentType, String folder) throws IOException {
+        Path directory = Files.createDirectories(root.resolve(folder));
+        Path file = directory.resolve(UUID.randomUUID() + extension(contentType));
+        Files.write(file, content);
+        return file.toUri().toString();
+    }
+
+    private static String extension(String contentType) {
+        return "image/png".equals(contentType) ? ".png" : ".jpg";
+    }
+}
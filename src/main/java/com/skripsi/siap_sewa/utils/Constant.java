@@ -87,6 +87,14 @@ public class Constant {
     public static final String TRANSACTION_STATUS_CANCELLED = "Dibatalkan";
     public static final String TRANSACTION_STATUS_FAILED = "Gagal";
 
+    // Product statuses
+    public static final String PRODUCT_STATUS_AVAILABLE = "AVAILABLE";
+
+    // Review image statuses
+    public static final String REVIEW_IMAGE_PENDING = "PENDING";
+    public static final String REVIEW_IMAGE_UPLOADED = "UPLOADED";
+    public static final String REVIEW_IMAGE_FAILED = "FAILED";
+
     // Checkout & Shipping
     public static final String CHECKOUT_VALIDATION_FAILED_CODE = "PS-08-001";
     public static final String PRODUCT_UNAVAILABLE_CODE = "PS-08-002";
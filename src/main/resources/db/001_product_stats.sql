@@ -0,0 +1,39 @@
+-- Read model for product cards (see ProductStatsService).
+CREATE TABLE IF NOT EXISTS product_stats (
+    product_id      VARCHAR(255) PRIMARY KEY REFERENCES product (id) ON DELETE CASCADE,
+    review_count    INTEGER          NOT NULL DEFAULT 0,
+    rating_sum      DOUBLE PRECISION NOT NULL DEFAULT 0,
+    weighted_rating DOUBLE PRECISION NOT NULL DEFAULT 0,
+    rented_count    INTEGER          NOT NULL DEFAULT 0,
+    bought_count    INTEGER          NOT NULL DEFAULT 0,
+    last_update_at  TIMESTAMP
+);
+
+-- Backfill from existing reviews and paid transactions.
+-- Weighted rating uses the same prior as ProductHelper (2 votes of 3.5).
+INSERT INTO product_stats (product_id, review_count, rating_sum, weighted_rating, rented_count, bought_count, last_update_at)
+SELECT p.id,
+       COALESCE(r.review_count, 0),
+       COALESCE(r.rating_sum, 0),
+       CASE WHEN COALESCE(r.review_count, 0) = 0 THEN 0
+            ELSE ROUND(CAST((r.rating_sum + 2 * 3.5) / (r.review_count + 2) AS numeric), 1) END,
+       COALESCE(t.rented_count, 0),
+       COALESCE(t.bought_count, 0),
+       now()
+FROM product p
+LEFT JOIN (
+    SELECT product_id, COUNT(*) AS review_count, SUM(rating) AS rating_sum
+    FROM review
+    WHERE rating IS NOT NULL
+    GROUP BY product_id
+) r ON r.product_id = p.id
+LEFT JOIN (
+    SELECT tp.product_id,
+           COUNT(*) FILTER (WHERE NOT t.is_selled) AS rented_count,
+           COUNT(*) FILTER (WHERE t.is_selled)     AS bought_count
+    FROM transaction_products tp
+    JOIN transaction t ON t.id = tp.transaction_id
+    WHERE t.status IS NULL OR t.status NOT IN ('Belum Dibayar', 'Dibatalkan', 'Gagal')
+    GROUP BY tp.product_id
+) t ON t.product_id = p.id
+ON CONFLICT (product_id) DO NOTHING;
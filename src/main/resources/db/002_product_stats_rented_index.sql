@@ -0,0 +1,2 @@
+-- Backs the "most rented" leaderboard (ProductStatsRepository.findAllByOrderByRentedCountDescProductIdAsc).
+CREATE INDEX IF NOT EXISTS idx_product_stats_rented ON product_stats (rented_count DESC, product_id);
@@ -0,0 +1,2 @@
+-- Backs rating filters and the "rating" sort on /api/product/filter (ProductSpecification).
+CREATE INDEX IF NOT EXISTS idx_product_stats_weighted_rating ON product_stats (weighted_rating DESC, product_id);
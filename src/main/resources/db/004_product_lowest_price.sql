@@ -0,0 +1,9 @@
+-- Effective card price (see ProductEntity.syncLowestPrice): smallest non-zero rent price, 0 when none is set.
+ALTER TABLE product ADD COLUMN IF NOT EXISTS lowest_price NUMERIC(38, 2);
+
+UPDATE product
+SET lowest_price = COALESCE(LEAST(NULLIF(daily_price, 0), NULLIF(weekly_price, 0), NULLIF(monthly_price, 0)), 0)
+WHERE lowest_price IS NULL;
+
+-- Backs price range filters and the lowestPrice sort on /api/product/filter.
+CREATE INDEX IF NOT EXISTS idx_product_category_status_lowest_price ON product (category, status, lowest_price);
@@ -0,0 +1,6 @@
+-- Review topics (ReviewTopicEnum bits) extracted from the comment when the review is written.
+-- Existing rows stay NULL until ReviewTopicBackfillService tags them after startup.
+ALTER TABLE review ADD COLUMN IF NOT EXISTS topic_mask INTEGER;
+
+-- Backs the topic filter of the product and shop review listings.
+CREATE INDEX IF NOT EXISTS idx_review_product_topic_mask ON review (product_id, topic_mask);
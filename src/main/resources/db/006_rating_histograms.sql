@@ -0,0 +1,60 @@
+-- Rating histograms (see ProductStatsService.recordReviews). A rating of n.x counts as n stars, clamped to 1..5.
+ALTER TABLE product_stats ADD COLUMN IF NOT EXISTS one_star_count   INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE product_stats ADD COLUMN IF NOT EXISTS two_star_count   INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE product_stats ADD COLUMN IF NOT EXISTS three_star_count INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE product_stats ADD COLUMN IF NOT EXISTS four_star_count  INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE product_stats ADD COLUMN IF NOT EXISTS five_star_count  INTEGER NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS shop_rating_stats (
+    shop_id          VARCHAR(255) PRIMARY KEY REFERENCES shop (id) ON DELETE CASCADE,
+    review_count     INTEGER          NOT NULL DEFAULT 0,
+    rating_sum       DOUBLE PRECISION NOT NULL DEFAULT 0,
+    one_star_count   INTEGER          NOT NULL DEFAULT 0,
+    two_star_count   INTEGER          NOT NULL DEFAULT 0,
+    three_star_count INTEGER          NOT NULL DEFAULT 0,
+    four_star_count  INTEGER          NOT NULL DEFAULT 0,
+    five_star_count  INTEGER          NOT NULL DEFAULT 0,
+    last_update_at   TIMESTAMP
+);
+
+-- Backfill from existing reviews.
+WITH star_reviews AS (
+    SELECT product_id, LEAST(GREATEST(FLOOR(rating), 1), 5) AS star
+    FROM review
+    WHERE rating IS NOT NULL
+)
+UPDATE product_stats ps
+SET one_star_count   = h.one_star_count,
+    two_star_count   = h.two_star_count,
+    three_star_count = h.three_star_count,
+    four_star_count  = h.four_star_count,
+    five_star_count  = h.five_star_count
+FROM (
+    SELECT product_id,
+           COUNT(*) FILTER (WHERE star = 1) AS one_star_count,
+           COUNT(*) FILTER (WHERE star = 2) AS two_star_count,
+           COUNT(*) FILTER (WHERE star = 3) AS three_star_count,
+           COUNT(*) FILTER (WHERE star = 4) AS four_star_count,
+           COUNT(*) FILTER (WHERE star = 5) AS five_star_count
+    FROM star_reviews
+    GROUP BY product_id
+) h
+WHERE h.product_id = ps.product_id;
+
+INSERT INTO shop_rating_stats (shop_id, review_count, rating_sum,
+                               one_star_count, two_star_count, three_star_count, four_star_count, five_star_count,
+                               last_update_at)
+SELECT p.shop_id,
+       COUNT(*),
+       SUM(r.rating),
+       COUNT(*) FILTER (WHERE LEAST(GREATEST(FLOOR(r.rating), 1), 5) = 1),
+       COUNT(*) FILTER (WHERE LEAST(GREATEST(FLOOR(r.rating), 1), 5) = 2),
+       COUNT(*) FILTER (WHERE LEAST(GREATEST(FLOOR(r.rating), 1), 5) = 3),
+       COUNT(*) FILTER (WHERE LEAST(GREATEST(FLOOR(r.rating), 1), 5) = 4),
+       COUNT(*) FILTER (WHERE LEAST(GREATEST(FLOOR(r.rating), 1), 5) = 5),
+       now()
+FROM review r
+JOIN product p ON p.id = r.product_id
+WHERE r.rating IS NOT NULL AND p.shop_id IS NOT NULL
+GROUP BY p.shop_id
+ON CONFLICT (shop_id) DO NOTHING;
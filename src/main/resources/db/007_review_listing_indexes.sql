@@ -0,0 +1,11 @@
+-- Shop of the reviewed product, copied onto the review (see ReviewService.addReview).
+ALTER TABLE review ADD COLUMN IF NOT EXISTS shop_id VARCHAR(255);
+
+UPDATE review r
+SET shop_id = p.shop_id
+FROM product p
+WHERE p.id = r.product_id AND r.shop_id IS NULL;
+
+-- Back the newest-first (created_at, id) keyset listings of product and shop reviews.
+CREATE INDEX IF NOT EXISTS idx_review_product_created ON review (product_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_review_shop_created ON review (shop_id, created_at DESC, id DESC);
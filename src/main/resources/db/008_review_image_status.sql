@@ -0,0 +1,4 @@
+-- Review images are uploaded after the review is saved (see ReviewImageService).
+ALTER TABLE review ADD COLUMN IF NOT EXISTS image_status VARCHAR(20);
+
+UPDATE review SET image_status = 'UPLOADED' WHERE image IS NOT NULL AND image_status IS NULL;
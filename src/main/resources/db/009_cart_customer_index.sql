@@ -0,0 +1,2 @@
+-- Back the single-query cart listing of one customer (see CartRepository.findCartItemViewsByCustomerId).
+CREATE INDEX IF NOT EXISTS idx_cart_customer_created ON cart (customer_id, created_at DESC);
@@ -0,0 +1,4 @@
+-- The filter queries never constrain status, so status in the middle of the index kept it from serving the
+-- lowest_price range. Index (category, lowest_price) instead (see ProductSpecification.addPricePredicates).
+DROP INDEX IF EXISTS idx_product_category_status_lowest_price;
+CREATE INDEX IF NOT EXISTS idx_product_category_lowest_price ON product (category, lowest_price);
@@ -0,0 +1,87 @@
+package com.skripsi.siap_sewa.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeywordFrequencySketchTest {
+
+	@Test
+	void murmur3MatchesTheReferenceVectors() {
+		assertEquals(0, KeywordFrequencySketch.murmur3(bytes(""), 0));
+		assertEquals(0x514E28B7, KeywordFrequencySketch.murmur3(bytes(""), 1));
+		assertEquals(0xBA6BD213, KeywordFrequencySketch.murmur3(bytes("test"), 0));
+		assertEquals(0xFAF6CDB3, KeywordFrequencySketch.murmur3(bytes("Hello, world!"), 1234));
+	}
+
+	@Test
+	void keywordsWithEqualHashCodesAreCountedApart() {
+		KeywordFrequencySketch sketch = new KeywordFrequencySketch();
+		assertEquals("Aa".hashCode(), "BB".hashCode());
+
+		for (int i = 0; i < 100; i++) {
+			sketch.increment("Aa");
+		}
+		sketch.increment("BB");
+
+		assertEquals(100, sketch.estimate("Aa"));
+		assertEquals(1, sketch.estimate("BB"));
+	}
+
+	@Test
+	void estimatesNeverUndercount() {
+		KeywordFrequencySketch sketch = new KeywordFrequencySketch();
+		for (int keyword = 0; keyword < 5_000; keyword++) {
+			for (int i = 0; i <= keyword % 7; i++) {
+				sketch.increment("kata " + keyword);
+			}
+		}
+
+		for (int keyword = 0; keyword < 5_000; keyword++) {
+			assertTrue(sketch.estimate("kata " + keyword) >= keyword % 7 + 1);
+		}
+	}
+
+	@Test
+	void topListsTheHottestKeywordsByCountThenName() {
+		KeywordFrequencySketch sketch = new KeywordFrequencySketch();
+		increment(sketch, "tenda", 30);
+		increment(sketch, "kamera", 20);
+		increment(sketch, "carrier", 20);
+		increment(sketch, "sepeda", 5);
+		for (int i = 0; i < 200; i++) {
+			sketch.increment("sekali " + i);
+		}
+
+		List<KeywordFrequencySketch.KeywordCount> top = sketch.top(3);
+
+		assertEquals(List.of("tenda", "carrier", "kamera"), top.stream().map(KeywordFrequencySketch.KeywordCount::keyword).toList());
+		assertEquals(30, top.get(0).count());
+	}
+
+	@Test
+	void decayHalvesCountsAndForgetsColdKeywords() {
+		KeywordFrequencySketch sketch = new KeywordFrequencySketch();
+		increment(sketch, "tenda", 8);
+		sketch.increment("sepeda");
+
+		sketch.decay();
+
+		assertEquals(4, sketch.estimate("tenda"));
+		assertEquals(List.of(new KeywordFrequencySketch.KeywordCount("tenda", 4)), sketch.top(10));
+	}
+
+	private static void increment(KeywordFrequencySketch sketch, String keyword, int times) {
+		for (int i = 0; i < times; i++) {
+			sketch.increment(keyword);
+		}
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+}
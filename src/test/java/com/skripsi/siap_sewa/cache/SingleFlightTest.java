@@ -0,0 +1,101 @@
+package com.skripsi.siap_sewa.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+	private static final int CALLERS = 50;
+
+	@Test
+	void concurrentMissesShareOneLoad() throws Exception {
+		SingleFlight<String, String> singleFlight = new SingleFlight<>();
+		AtomicInteger queries = new AtomicInteger();
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch entered = new CountDownLatch(CALLERS - 1);
+		Set<Thread> followers = ConcurrentHashMap.newKeySet();
+
+		ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+		try {
+			// The first caller is held inside the loader until every other caller is waiting on its load
+			List<Future<String>> results = new ArrayList<>();
+			results.add(executor.submit(() -> singleFlight.load("product-1", () -> {
+				queries.incrementAndGet();
+				loading.countDown();
+				await(entered);
+				awaitParked(followers);
+				return "detail";
+			})));
+			assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+			for (int i = 1; i < CALLERS; i++) {
+				results.add(executor.submit(() -> {
+					followers.add(Thread.currentThread());
+					entered.countDown();
+					return singleFlight.load("product-1", () -> {
+						queries.incrementAndGet();
+						return "detail";
+					});
+				}));
+			}
+
+			for (Future<String> result : results) {
+				assertEquals("detail", result.get(5, TimeUnit.SECONDS));
+			}
+			assertEquals(1, queries.get());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void loadsAgainOnceTheBurstIsOver() {
+		SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+		AtomicInteger queries = new AtomicInteger();
+
+		singleFlight.load("shop-1", queries::incrementAndGet);
+		singleFlight.load("shop-1", queries::incrementAndGet);
+
+		assertEquals(2, queries.get());
+	}
+
+	@Test
+	void loaderFailureIsRethrown() {
+		SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+		assertThrows(IllegalStateException.class, () -> singleFlight.load("customer-1", () -> {
+			throw new IllegalStateException("database unavailable");
+		}));
+	}
+
+	// A follower parks only once it is joined to the leader's load
+	private static void awaitParked(Set<Thread> threads) {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!threads.stream().allMatch(thread -> thread.getState() == Thread.State.WAITING)
+				&& System.nanoTime() < deadline) {
+			Thread.onSpinWait();
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package com.skripsi.siap_sewa.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class VersionedLruCacheTest {
+
+	private final AtomicInteger loads = new AtomicInteger();
+
+	@Test
+	void invalidatingOneKeyKeepsTheLoadOfAnother() {
+		VersionedLruCache<String, String> cache = cache(10);
+
+		cache.get("a", () -> {
+			cache.invalidate("b");
+			return load("a");
+		});
+		cache.get("a", () -> load("a"));
+
+		assertEquals(1, loads.get());
+	}
+
+	@Test
+	void loadRacingAnInvalidationOfItsKeyIsNotStored() {
+		VersionedLruCache<String, String> cache = cache(10);
+
+		String first = cache.get("a", () -> {
+			cache.invalidate("a");
+			return load("a");
+		});
+		cache.get("a", () -> load("a"));
+
+		assertEquals("a1", first);
+		assertEquals(2, loads.get());
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	void updateChangesPresentEntriesOnlyAndDiscardsRacingLoads() {
+		VersionedLruCache<String, String> cache = cache(10);
+		cache.get("a", () -> load("a"));
+
+		cache.update("a", value -> value + "+");
+		cache.update("b", value -> value + "+");
+		assertEquals("a1+", cache.get("a", () -> load("a")));
+		assertEquals(1, cache.size());
+
+		cache.get("c", () -> {
+			cache.update("c", value -> value + "+");
+			return load("c");
+		});
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	void leastRecentlyUsedEntryIsEvictedAtTheBound() {
+		VersionedLruCache<String, String> cache = cache(2);
+		cache.get("a", () -> load("a"));
+		cache.get("b", () -> load("b"));
+		cache.get("a", () -> load("a"));
+		cache.get("c", () -> load("c"));
+
+		assertEquals(2, cache.size());
+		assertEquals("a1", cache.get("a", () -> load("a")));
+		assertEquals("b4", cache.get("b", () -> load("b")));
+	}
+
+	@Test
+	void revalidationCanRefreshOrReloadAnEntry() {
+		VersionedLruCache<String, String> cache = cache(10);
+		cache.get("a", () -> load("a"));
+
+		assertEquals("a1!", cache.get("a", () -> load("a"), value -> value + "!"));
+		assertEquals("a1!", cache.get("a", () -> load("a")));
+		assertEquals("a2", cache.get("a", () -> load("a"), value -> null));
+	}
+
+	private VersionedLruCache<String, String> cache(int maxSize) {
+		return new VersionedLruCache<>("test", new SimpleMeterRegistry(), maxSize, value -> false);
+	}
+
+	private String load(String key) {
+		return key + loads.incrementAndGet();
+	}
+}
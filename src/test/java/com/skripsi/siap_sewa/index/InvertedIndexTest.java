@@ -0,0 +1,82 @@
+package com.skripsi.siap_sewa.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InvertedIndexTest {
+
+	@Test
+	void completeWalksWordsInOrderUpToTheLimit() {
+		InvertedIndex<String> index = index();
+
+		List<String> all = index.complete("kam", 10);
+		assertEquals("kamar-lampu", all.get(0));
+		assertEquals(Set.of("kamar-lampu", "kamera-canon", "kamera-sony"), Set.copyOf(all));
+		assertEquals(List.of("kamar-lampu"), index.complete("kam", 1));
+	}
+
+	@Test
+	void completeNarrowsToDocumentsWithThePrecedingWords() {
+		InvertedIndex<String> index = index();
+
+		assertEquals(List.of("kamera-sony"), index.complete("sony ka", 10));
+		assertEquals(List.of("kamera-sony"), index.complete("kamera s", 10));
+		assertEquals(List.of("kamar-lampu"), index.complete("lampu ka", 10));
+		assertEquals(List.of(), index.complete("ransel ka", 10));
+	}
+
+	@Test
+	void completeWithPrecedingWordsOrdersByWordThenName() {
+		InvertedIndex<String> index = index();
+		for (int i = 0; i < 500; i++) {
+			index.put("tenda-" + i, "tenda-" + i, "Tenda Dome " + i, "Camping");
+		}
+
+		assertEquals(List.of("tenda-0", "tenda-1", "tenda-10"), index.complete("dome t", 3));
+	}
+
+	@Test
+	void searchRanksExactTiersBeforeTypoMatches() {
+		InvertedIndex<String> index = new InvertedIndex<>();
+		index.put("typo", "typo", "Tnda Camping", "Camping");
+		index.put("contains", "contains", "Sewa Tenda", "Camping");
+		index.put("prefix", "prefix", "Tenda Dome", "Camping");
+		index.put("exact", "exact", "Tenda", "Camping");
+		index.put("unrelated", "unrelated", "Kamera Canon", "Fotografi");
+
+		assertEquals(List.of("exact", "prefix", "contains", "typo"), index.search("tenda", 10, 0.3));
+		assertEquals(List.of("exact", "prefix", "contains"), index.search("tenda", 3, 0.3));
+		assertEquals(List.of("exact", "prefix", "contains"), index.search("tenda", 10, 0.5));
+	}
+
+	@Test
+	void searchFindsTypoMatchesWhenNothingMatchesExactly() {
+		InvertedIndex<String> index = index();
+
+		// "kamra" is 4/9 similar to "kamera" and 3/9 to "kamar"
+		assertEquals(List.of("kamera-canon", "kamera-sony", "kamar-lampu"), index.search("kamra", 10, 0.3));
+		assertEquals(List.of("kamera-canon", "kamera-sony"), index.search("kamra", 10, 0.4));
+		assertEquals(List.of(), index.search("kamra", 10, 0.9));
+	}
+
+	@Test
+	void shortWordsAreLookedUpByPrefix() {
+		InvertedIndex<String> index = index();
+
+		assertEquals(List.of("kamera-sony"), index.search("a7", 10, 0.3));
+		assertEquals(List.of("kamera-sony"), index.search("so a7", 10, 0.3));
+		assertEquals(List.of(), index.search("zz", 10, 0.3));
+	}
+
+	private static InvertedIndex<String> index() {
+		InvertedIndex<String> index = new InvertedIndex<>();
+		index.put("kamera-canon", "kamera-canon", "Kamera Canon EOS", "Fotografi");
+		index.put("kamera-sony", "kamera-sony", "Kamera Sony A7", "Fotografi");
+		index.put("kamar-lampu", "kamar-lampu", "Lampu Kamar Tidur", "Dekorasi");
+		return index;
+	}
+}
@@ -0,0 +1,31 @@
+package com.skripsi.siap_sewa.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SearchTextTest {
+
+	@Test
+	void similarityFollowsPgTrgm() {
+		assertEquals(1.0, SearchText.similarity("kamera", "kamera"), 1e-9);
+		// "  k", " ka", "kam", "ra " shared out of 7 + 6 trigrams
+		assertEquals(4.0 / 9, SearchText.similarity("kamera", "kamra"), 1e-9);
+		assertEquals(0.0, SearchText.similarity("abc", "xyz"), 1e-9);
+	}
+
+	@Test
+	void similarityOfPrecomputedGramsMatchesTheWordForm() {
+		for (String[] pair : new String[][]{{"tenda", "tnda"}, {"proyektor", "projektor"}, {"ab", "abc"}}) {
+			assertEquals(SearchText.similarity(pair[0], pair[1]),
+					SearchText.similarity(SearchText.paddedGrams(pair[0]), SearchText.paddedGrams(pair[1])), 1e-9);
+		}
+	}
+
+	@Test
+	void tokensAreStemmedAndDistinct() {
+		assertEquals(List.of("buku", "tenda"), SearchText.tokens(SearchText.normalize("Buku-bukunya TENDA tendanya")));
+	}
+}
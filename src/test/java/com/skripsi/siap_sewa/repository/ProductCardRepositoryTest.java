@@ -0,0 +1,121 @@
+package com.skripsi.siap_sewa.repository;
+
+import com.skripsi.siap_sewa.entity.ProductEntity;
+import com.skripsi.siap_sewa.entity.ShopEntity;
+import com.skripsi.siap_sewa.repository.projection.ProductCardView;
+import com.skripsi.siap_sewa.spesification.ProductCursor;
+import com.skripsi.siap_sewa.spesification.ProductSpecification;
+import com.skripsi.siap_sewa.support.PostgresContainerTest;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ProductCardRepositoryTest extends PostgresContainerTest {
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private ShopRepository shopRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private final List<String> productIds = new ArrayList<>();
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		ShopEntity shop = shopRepository.save(ShopEntity.builder()
+				.name("Toko Camping")
+				.regency("Kota Bandung")
+				.province("Jawa Barat")
+				.build());
+		for (int i = 0; i < 5; i++) {
+			productIds.add(productRepository.save(ProductEntity.builder()
+					.name("Produk " + i)
+					.category("Camping")
+					.status("AVAILABLE")
+					.dailyPrice(BigDecimal.valueOf(10_000L * (i + 1)))
+					.shop(shop)
+					.build()).getId());
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void pageOfCardsTakesOneSelectAndOneCount() {
+		Page<ProductCardView> page = productRepository.findProductCards(
+				camping(), PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "dailyPrice")));
+
+		assertEquals(2, statistics.getPrepareStatementCount());
+		assertEquals(List.of("Produk 4", "Produk 3"), page.getContent().stream().map(ProductCardView::name).toList());
+		assertEquals("Kota Bandung", page.getContent().get(0).regency());
+		assertEquals(5, page.getTotalElements());
+		assertEquals(0, statistics.getEntityLoadCount());
+	}
+
+	@Test
+	void lastPageSkipsTheCountQuery() {
+		Page<ProductCardView> page = productRepository.findProductCards(camping(), PageRequest.of(0, 10));
+
+		assertEquals(1, statistics.getPrepareStatementCount());
+		assertEquals(5, page.getTotalElements());
+	}
+
+	@Test
+	void cardsByIdKeepTheRequestedOrderInOneSelect() {
+		List<String> ids = List.of(productIds.get(3), productIds.get(0), "missing", productIds.get(2));
+
+		List<ProductCardView> cards = productRepository.findProductCardsInOrder(ids);
+
+		assertEquals(1, statistics.getPrepareStatementCount());
+		assertEquals(List.of(productIds.get(3), productIds.get(0), productIds.get(2)),
+				cards.stream().map(ProductCardView::id).toList());
+	}
+
+	@Test
+	void cursorPageIsOneSelectCarryingTheSortKey() {
+		List<ProductCardView> first = productRepository.findProductCards(
+				camping().and(ProductSpecification.seek("dailyPrice", Sort.Direction.DESC, null)), 3);
+
+		assertEquals(1, statistics.getPrepareStatementCount());
+		assertEquals(List.of("Produk 4", "Produk 3", "Produk 2"), first.stream().map(ProductCardView::name).toList());
+
+		ProductCursor cursor = ProductCursor.after(first.get(2), "dailyPrice", Sort.Direction.DESC);
+		List<ProductCardView> next = productRepository.findProductCards(
+				camping().and(ProductSpecification.seek("dailyPrice", Sort.Direction.DESC, cursor)), 3);
+
+		assertEquals(List.of("Produk 1", "Produk 0"), next.stream().map(ProductCardView::name).toList());
+		assertEquals(2, statistics.getPrepareStatementCount());
+	}
+
+	private static Specification<ProductEntity> camping() {
+		return (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("category"), "Camping");
+	}
+}
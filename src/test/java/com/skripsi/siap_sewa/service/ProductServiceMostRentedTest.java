@@ -0,0 +1,141 @@
+package com.skripsi.siap_sewa.service;
+
+import com.skripsi.siap_sewa.cache.ProductDetailCache;
+import com.skripsi.siap_sewa.dto.ApiResponse;
+import com.skripsi.siap_sewa.dto.product.ProductResponse;
+import com.skripsi.siap_sewa.index.ProductFilterIndex;
+import com.skripsi.siap_sewa.index.ProductLocalityIndex;
+import com.skripsi.siap_sewa.index.SearchIndex;
+import com.skripsi.siap_sewa.mapper.ProductMapper;
+import com.skripsi.siap_sewa.support.PostgresContainerTest;
+import com.skripsi.siap_sewa.utils.CommonUtils;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Most rented listing on a seeded 100k-product catalog: a fixed number of statements
+ * whatever the catalog size, with the leaderboard read from idx_product_stats_rented.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ProductService.class, ProductStatsService.class, ProductMapper.class, CommonUtils.class})
+class ProductServiceMostRentedTest extends PostgresContainerTest {
+
+	private static final int PRODUCTS = 100_000;
+	private static final int SHOPS = 1_000;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@MockitoBean
+	private ModelMapper modelMapper;
+
+	@MockitoBean
+	private CloudinaryService cloudinaryService;
+
+	@MockitoBean
+	private ProductSamplingService productSamplingService;
+
+	@MockitoBean
+	private ProductLocalityIndex productLocalityIndex;
+
+	@MockitoBean
+	private ProductFilterIndex productFilterIndex;
+
+	@MockitoBean
+	private SearchIndex searchIndex;
+
+	@MockitoBean
+	private ProductDetailCache productDetailCache;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate.update("""
+				INSERT INTO shop (id, name, regency, province)
+				SELECT 'shop-' || g, 'Toko ' || g, 'Kota ' || g % 50, 'Jawa Barat'
+				FROM generate_series(1, ?) g""", SHOPS);
+		jdbcTemplate.update("""
+				INSERT INTO product (id, name, category, rent_category, is_rnb, stock, min_rented, status,
+				                     daily_price, lowest_price, shop_id)
+				SELECT 'product-' || g, 'Produk ' || g, 'Camping', 1, false, 5, 1, 'AVAILABLE',
+				       10000, 10000, 'shop-' || (g % ? + 1)
+				FROM generate_series(1, ?) g""", SHOPS, PRODUCTS);
+		// 7919 is coprime to the catalog size, so every product gets a distinct rented count in 0..PRODUCTS-1
+		jdbcTemplate.update("""
+				INSERT INTO product_stats (product_id, review_count, rating_sum, weighted_rating, rented_count, bought_count,
+				                           one_star_count, two_star_count, three_star_count, four_star_count, five_star_count)
+				SELECT 'product-' || g, 0, 0, 0, g * 7919 % ?, 0, 0, 0, 0, 0, 0
+				FROM generate_series(1, ?) g""", PRODUCTS, PRODUCTS);
+		jdbcTemplate.execute("ANALYZE shop, product, product_stats");
+
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void leaderboardAndCardsTakeTwoStatements() {
+		List<ProductResponse> products = mostRented();
+
+		assertEquals(2, statistics.getPrepareStatementCount());
+		assertEquals(0, statistics.getEntityLoadCount());
+		assertEquals(10, products.size());
+		for (int i = 0; i < products.size(); i++) {
+			assertEquals(PRODUCTS - 1 - i, products.get(i).getRentedTimes());
+		}
+		assertTrue(products.get(0).getAddress().startsWith("Kota "));
+	}
+
+	@Test
+	void shortLeaderboardIsFilledWithOneMoreStatement() {
+		jdbcTemplate.update("DELETE FROM product_stats WHERE rented_count < ?", PRODUCTS - 3);
+		statistics.clear();
+
+		List<ProductResponse> products = mostRented();
+
+		assertEquals(3, statistics.getPrepareStatementCount());
+		assertEquals(10, products.size());
+		assertEquals(List.of(PRODUCTS - 1, PRODUCTS - 2, PRODUCTS - 3, 0),
+				products.stream().limit(4).map(ProductResponse::getRentedTimes).toList());
+	}
+
+	@Test
+	void leaderboardIsReadFromTheRentedIndex() {
+		String plan = String.join("\n", jdbcTemplate.queryForList("""
+				EXPLAIN SELECT product_id, rented_count FROM product_stats
+				ORDER BY rented_count DESC, product_id ASC
+				LIMIT 10""", String.class));
+
+		assertTrue(plan.contains("idx_product_stats_rented"), plan);
+		assertFalse(plan.contains("Sort"), plan);
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<ProductResponse> mostRented() {
+		ApiResponse response = productService.getProductByMostRented().getBody();
+		return (List<ProductResponse>) response.getOutputSchema();
+	}
+}
@@ -0,0 +1,98 @@
+package com.skripsi.siap_sewa.service;
+
+import com.skripsi.siap_sewa.repository.ReviewRepository;
+import com.skripsi.siap_sewa.storage.ImageStorage;
+import com.skripsi.siap_sewa.storage.LocalImageStorage;
+import com.skripsi.siap_sewa.utils.Constant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReviewImageServiceTest {
+
+	private static final byte[] IMAGE = {(byte) 0x89, 'P', 'N', 'G'};
+	private static final List<String> REVIEWS = List.of("review-1", "review-2");
+
+	@TempDir
+	Path uploads;
+
+	private ReviewRepository reviewRepository;
+	private final List<Runnable> queued = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		reviewRepository = mock(ReviewRepository.class);
+	}
+
+	@Test
+	void uploadStoresTheImageAndPatchesEveryReview() throws Exception {
+		service(new LocalImageStorage(uploads.toString()), Runnable::run)
+				.uploadAfterCommit(REVIEWS, IMAGE, "image/png");
+
+		ArgumentCaptor<String> url = ArgumentCaptor.forClass(String.class);
+		verify(reviewRepository).updateImage(eq(REVIEWS), url.capture(), eq(Constant.REVIEW_IMAGE_UPLOADED));
+		Path stored = Path.of(URI.create(url.getValue()));
+		assertEquals(uploads.resolve("review_images"), stored.getParent());
+		assertArrayEquals(IMAGE, Files.readAllBytes(stored));
+	}
+
+	@Test
+	void failingStorageMarksTheReviewsFailedAfterEveryAttempt() throws Exception {
+		ImageStorage storage = mock(ImageStorage.class);
+		when(storage.store(any(), anyString(), anyString())).thenThrow(new IllegalStateException("offline"));
+
+		service(storage, Runnable::run).uploadAfterCommit(REVIEWS, IMAGE, "image/png");
+
+		verify(storage, times(3)).store(any(), anyString(), anyString());
+		verify(reviewRepository).updateImage(eq(REVIEWS), isNull(), eq(Constant.REVIEW_IMAGE_FAILED));
+	}
+
+	@Test
+	void fullQueueMarksTheReviewsFailedInsteadOfUploadingOnTheCaller() {
+		Executor full = task -> {
+			throw new RejectedExecutionException("queue full");
+		};
+
+		service(new LocalImageStorage(uploads.toString()), full).uploadAfterCommit(REVIEWS, IMAGE, "image/png");
+
+		verify(reviewRepository).updateImage(eq(REVIEWS), isNull(), eq(Constant.REVIEW_IMAGE_FAILED));
+	}
+
+	@Test
+	void sweepFailsStalePendingReviewsExceptThoseStillUploading() {
+		ReviewImageService service = service(new LocalImageStorage(uploads.toString()), queued::add);
+		service.uploadAfterCommit(List.of("review-1"), IMAGE, "image/png");
+		when(reviewRepository.findIdsByImageStatusCreatedBefore(eq(Constant.REVIEW_IMAGE_PENDING), any()))
+				.thenReturn(List.of("review-1", "review-orphan"));
+
+		assertEquals(1, service.failStalePending());
+		verify(reviewRepository).updateImage(eq(List.of("review-orphan")), isNull(), eq(Constant.REVIEW_IMAGE_FAILED));
+
+		queued.forEach(Runnable::run);
+		verify(reviewRepository).updateImage(eq(List.of("review-1")), anyString(), eq(Constant.REVIEW_IMAGE_UPLOADED));
+	}
+
+	private ReviewImageService service(ImageStorage storage, Executor executor) {
+		return new ReviewImageService(storage, reviewRepository, executor, 3, 0, 900_000);
+	}
+}
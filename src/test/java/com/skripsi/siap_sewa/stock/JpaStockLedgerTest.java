@@ -0,0 +1,89 @@
+package com.skripsi.siap_sewa.stock;
+
+import com.skripsi.siap_sewa.entity.ProductEntity;
+import com.skripsi.siap_sewa.repository.ProductRepository;
+import com.skripsi.siap_sewa.support.PostgresContainerTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+// Every take commits on its own, so the test itself runs outside a transaction
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(JpaStockLedger.class)
+class JpaStockLedgerTest extends PostgresContainerTest {
+
+	private static final int THREADS = 32;
+	private static final int ATTEMPTS_PER_THREAD = 40;
+	private static final int STOCK = 500;
+
+	@Autowired
+	private JpaStockLedger ledger;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@AfterEach
+	void cleanUp() {
+		productRepository.deleteAll();
+	}
+
+	@Test
+	void concurrentTakesNeverOversell() throws Exception {
+		String productId = productRepository.save(ProductEntity.builder()
+				.name("Tenda Dome")
+				.status("AVAILABLE")
+				.stock(STOCK)
+				.build()).getId();
+		AtomicInteger taken = new AtomicInteger();
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<?>> results = new ArrayList<>();
+			for (int t = 0; t < THREADS; t++) {
+				results.add(executor.submit(() -> {
+					start.await(5, TimeUnit.SECONDS);
+					for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+						if (ledger.take(productId, 1)) {
+							taken.incrementAndGet();
+						}
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> result : results) {
+				result.get(60, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		// More attempts than units: every unit is taken exactly once and the row stops at 0
+		assertEquals(STOCK, taken.get());
+		assertEquals(0, productRepository.findStockById(productId).orElseThrow());
+		assertFalse(ledger.take(productId, 1));
+
+		ledger.restore(productId, 3);
+		assertEquals(3, productRepository.findStockById(productId).orElseThrow());
+	}
+}
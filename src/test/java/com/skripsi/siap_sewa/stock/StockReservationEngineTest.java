@@ -0,0 +1,205 @@
+package com.skripsi.siap_sewa.stock;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StockReservationEngineTest {
+
+	private static final int THREADS = 64;
+	private static final int ATTEMPTS_PER_THREAD = 200;
+	private static final int STOCK = 500;
+
+	@Test
+	void concurrentReservationsNeverOversell() throws Exception {
+		InMemoryStockLedger ledger = new InMemoryStockLedger(Map.of("product-1", STOCK));
+		StockReservationEngine engine = new StockReservationEngine(ledger, 60_000);
+		List<StockReservation> reserved = new CopyOnWriteArrayList<>();
+		AtomicInteger rejected = new AtomicInteger();
+
+		runConcurrently(thread -> {
+			for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+				Optional<StockReservation> reservation = engine.reserve("product-1", 1 + (thread + i) % 3);
+				if (reservation.isPresent()) {
+					reserved.add(reservation.get());
+				} else {
+					rejected.incrementAndGet();
+				}
+			}
+		});
+
+		int reservedUnits = reserved.stream().mapToInt(StockReservation::quantity).sum();
+		assertTrue(reservedUnits <= STOCK);
+		assertTrue(rejected.get() > 0);
+		assertEquals(STOCK - reservedUnits, ledger.stock("product-1"));
+		assertEquals(0, ledger.lowestSeen());
+
+		engine.commitAll(reserved);
+		assertEquals(STOCK - reservedUnits, ledger.stock("product-1"));
+		assertEquals(0, engine.activeCount());
+	}
+
+	@Test
+	void racingReleaseCommitAndExpiryEndEachReservationOnce() throws Exception {
+		InMemoryStockLedger ledger = new InMemoryStockLedger(Map.of("product-1", STOCK));
+		StockReservationEngine engine = new StockReservationEngine(ledger, 0);
+		List<StockReservation> reserved = new ArrayList<>();
+		for (int i = 0; i < STOCK; i++) {
+			reserved.add(engine.reserve("product-1", 1).orElseThrow());
+		}
+		AtomicInteger committed = new AtomicInteger();
+
+		// Every thread tries to end every reservation: half commit, half release, all sweep
+		runConcurrently(thread -> {
+			for (StockReservation reservation : reserved) {
+				if (thread % 2 == 0) {
+					if (engine.commit(reservation.id())) {
+						committed.incrementAndGet();
+					}
+				} else {
+					engine.release(reservation.id());
+				}
+			}
+			engine.releaseExpired();
+		});
+
+		assertEquals(0, engine.activeCount());
+		assertEquals(STOCK - committed.get(), ledger.stock("product-1"));
+	}
+
+	@Test
+	void endedReservationCannotBeEndedAgain() {
+		InMemoryStockLedger ledger = new InMemoryStockLedger(Map.of("product-1", 2));
+		StockReservationEngine engine = new StockReservationEngine(ledger, 60_000);
+
+		StockReservation reservation = engine.reserve("product-1", 2).orElseThrow();
+		assertFalse(engine.reserve("product-1", 1).isPresent());
+
+		assertTrue(engine.commit(reservation.id()));
+		assertFalse(engine.release(reservation.id()));
+		assertEquals(0, ledger.stock("product-1"));
+	}
+
+	@Test
+	void sweepSkipsReservationsOfAnOpenTransaction() {
+		InMemoryStockLedger ledger = new InMemoryStockLedger(Map.of("product-1", 5));
+		StockReservationEngine engine = new StockReservationEngine(ledger, 0);
+
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			engine.reserve("product-1", 2).orElseThrow();
+			assertEquals(0, engine.releaseExpired());
+			assertEquals(3, ledger.stock("product-1"));
+
+			// The rollback undoes the take in the database; the sweep must not restore it too
+			TransactionSynchronizationManager.getSynchronizations()
+					.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+
+		assertEquals(0, engine.releaseExpired());
+		assertEquals(0, engine.activeCount());
+		assertEquals(3, ledger.stock("product-1"));
+	}
+
+	@Test
+	void sweepReleasesExpiredReservationOnceItsTransactionCommitted() {
+		InMemoryStockLedger ledger = new InMemoryStockLedger(Map.of("product-1", 5));
+		StockReservationEngine engine = new StockReservationEngine(ledger, 0);
+
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			engine.reserve("product-1", 2).orElseThrow();
+			TransactionSynchronizationManager.getSynchronizations()
+					.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+
+		assertEquals(1, engine.releaseExpired());
+		assertEquals(5, ledger.stock("product-1"));
+	}
+
+	private static void runConcurrently(ThreadBody body) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<?>> results = new ArrayList<>();
+			for (int t = 0; t < THREADS; t++) {
+				int thread = t;
+				results.add(executor.submit(() -> {
+					start.await(5, TimeUnit.SECONDS);
+					body.run(thread);
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> result : results) {
+				result.get(30, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private interface ThreadBody {
+		void run(int thread);
+	}
+
+	// Same contract as the conditional UPDATE: the check and the decrement are one atomic step
+	private static final class InMemoryStockLedger implements StockLedger {
+
+		private final Map<String, AtomicInteger> stocks = new ConcurrentHashMap<>();
+		private final AtomicInteger lowestSeen = new AtomicInteger(Integer.MAX_VALUE);
+
+		private InMemoryStockLedger(Map<String, Integer> initial) {
+			initial.forEach((productId, stock) -> stocks.put(productId, new AtomicInteger(stock)));
+		}
+
+		@Override
+		public boolean take(String productId, int quantity) {
+			AtomicInteger stock = stocks.get(productId);
+			while (true) {
+				int current = stock.get();
+				if (current < quantity) {
+					return false;
+				}
+				if (stock.compareAndSet(current, current - quantity)) {
+					lowestSeen.accumulateAndGet(current - quantity, Math::min);
+					return true;
+				}
+			}
+		}
+
+		@Override
+		public void restore(String productId, int quantity) {
+			stocks.get(productId).addAndGet(quantity);
+		}
+
+		private int stock(String productId) {
+			return stocks.get(productId).get();
+		}
+
+		private int lowestSeen() {
+			return lowestSeen.get();
+		}
+	}
+}
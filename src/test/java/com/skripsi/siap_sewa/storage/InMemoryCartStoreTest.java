@@ -0,0 +1,119 @@
+package com.skripsi.siap_sewa.storage;
+
+import com.skripsi.siap_sewa.entity.CartEntity;
+import com.skripsi.siap_sewa.entity.ProductEntity;
+import com.skripsi.siap_sewa.repository.CartRepository;
+import com.skripsi.siap_sewa.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InMemoryCartStoreTest {
+
+	private static final String CUSTOMER = "customer-1";
+
+	private CartRepository cartRepository;
+	private ProductRepository productRepository;
+	private TransactionTemplate transactionTemplate;
+
+	@BeforeEach
+	void setUp() {
+		cartRepository = mock(CartRepository.class);
+		productRepository = mock(ProductRepository.class);
+		transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+		when(cartRepository.findLiveByCustomerId(CUSTOMER)).thenReturn(List.of());
+	}
+
+	@Test
+	void repeatedEditsOfOneItemFlushAsOneWrite() {
+		InMemoryCartStore store = store(5, 600_000);
+
+		CartEntity cart = store.save(cart(null, "product-1", 1));
+		store.save(cart(cart.getId(), "product-1", 2));
+		store.save(cart(cart.getId(), "product-1", 3));
+		assertEquals(1, store.pendingWrites());
+
+		store.flush();
+
+		verify(cartRepository, times(1)).upsert(eq(cart.getId()), eq(CUSTOMER), eq("product-1"), anyInt(),
+				any(), any(), any(), any(), any(), any(), any());
+		verify(cartRepository).upsert(eq(cart.getId()), eq(CUSTOMER), eq("product-1"), eq(3),
+				any(), any(), any(), any(), any(), any(), any());
+		assertEquals(0, store.pendingWrites());
+	}
+
+	@Test
+	void failingWriteIsRetriedAloneAndDroppedAfterMaxAttempts() {
+		InMemoryCartStore store = store(2, 600_000);
+		CartEntity good = store.save(cart(null, "product-1", 1));
+		CartEntity bad = store.save(cart(null, "product-2", 1));
+		when(cartRepository.upsert(eq(bad.getId()), any(), any(), anyInt(),
+				any(), any(), any(), any(), any(), any(), any()))
+				.thenThrow(new IllegalStateException("violates foreign key constraint"));
+
+		// The batch fails, the good write goes through on its own, the bad one is kept
+		store.flush();
+		verify(cartRepository, atLeastOnce()).upsert(eq(good.getId()), any(), any(), anyInt(),
+				any(), any(), any(), any(), any(), any(), any());
+		assertEquals(1, store.pendingWrites());
+
+		// Second failed run reaches the limit and drops it instead of blocking the queue
+		store.flush();
+		assertEquals(0, store.pendingWrites());
+
+		CartEntity later = store.save(cart(null, "product-3", 1));
+		store.flush();
+		verify(cartRepository).upsert(eq(later.getId()), any(), any(), anyInt(),
+				any(), any(), any(), any(), any(), any(), any());
+	}
+
+	@Test
+	void flushedIdleCartIsEvictedAndReloaded() {
+		// A negative bound makes every flushed cart idle, without waiting for the clock
+		InMemoryCartStore store = store(5, -1);
+		store.save(cart(null, "product-1", 1));
+		verify(cartRepository, times(1)).findLiveByCustomerId(CUSTOMER);
+
+		// Carts with unflushed writes stay; once flushed and idle they are dropped
+		store.flush();
+		store.findByCustomerIdAndProductIdAndDates(CUSTOMER, "product-1",
+				LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 3));
+
+		verify(cartRepository, times(2)).findLiveByCustomerId(CUSTOMER);
+	}
+
+	private InMemoryCartStore store(int maxFlushAttempts, long idleEvictMillis) {
+		return new InMemoryCartStore(cartRepository, productRepository, transactionTemplate,
+				"write-behind", 4, 500, maxFlushAttempts, idleEvictMillis);
+	}
+
+	private static CartEntity cart(String id, String productId, int quantity) {
+		return CartEntity.builder()
+				.id(id)
+				.customerId(CUSTOMER)
+				.product(ProductEntity.builder().id(productId).build())
+				.quantity(quantity)
+				.totalAmount(BigDecimal.valueOf(10_000L * quantity))
+				.startRentDate(LocalDate.of(2025, 1, 1))
+				.endRentDate(LocalDate.of(2025, 1, 3))
+				.createdAt(LocalDateTime.of(2024, 12, 30, 10, 0))
+				.lastUpdateAt(LocalDateTime.of(2024, 12, 30, 10, 0))
+				.build();
+	}
+}
@@ -0,0 +1,25 @@
+package com.skripsi.siap_sewa.support;
+
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Base for tests that need the real database: one Postgres container shared by the
+ * subclasses, with the schema created from the entities. Skipped where Docker is missing.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+public abstract class PostgresContainerTest {
+
+	@Container
+	@ServiceConnection
+	protected static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	@DynamicPropertySource
+	static void schemaProperties(DynamicPropertyRegistry registry) {
+		registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
+	}
+}